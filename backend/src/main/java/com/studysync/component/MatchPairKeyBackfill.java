@@ -0,0 +1,54 @@
+package com.studysync.component;
+
+import com.studysync.model.Match;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills in pair_key for matches created before the column existed. When a pair
+ * already has more than one row only the oldest gets the key; the rest are left
+ * without one and logged so they can be cleaned up by hand.
+ */
+@Component
+public class MatchPairKeyBackfill implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MatchPairKeyBackfill.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<long[]> missing = jdbcTemplate.query(
+                "SELECT id, user1_id, user2_id FROM matches WHERE pair_key IS NULL ORDER BY id",
+                (rs, rowNum) -> new long[] { rs.getLong(1), rs.getLong(2), rs.getLong(3) });
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Set<Long> taken = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT pair_key FROM matches WHERE pair_key IS NOT NULL", Long.class));
+        List<Object[]> updates = new ArrayList<>();
+        for (long[] row : missing) {
+            long pairKey = Match.pairKey(row[1], row[2]);
+            if (taken.add(pairKey)) {
+                updates.add(new Object[] { pairKey, row[0] });
+            } else {
+                LOGGER.warn("Match {} duplicates an existing row for users {} and {}, left without pair key",
+                        row[0], row[1], row[2]);
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE matches SET pair_key = ? WHERE id = ?", updates);
+        LOGGER.info("Backfilled pair key on {} matches", updates.size());
+    }
+}
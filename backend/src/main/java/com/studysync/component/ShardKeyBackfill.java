@@ -0,0 +1,63 @@
+package com.studysync.component;
+
+import com.studysync.service.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Brings every user's shard_key in line with the configured shard key strategy:
+ * fills it in for users saved before the column existed and recomputes it when
+ * the strategy or geo cell size changed. Runs before the matching indexes are
+ * built on start, so they load the right shards.
+ */
+@Component
+public class ShardKeyBackfill implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardKeyBackfill.class);
+    private static final int PAGE_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long afterId = 0L;
+        int updated = 0;
+        while (true) {
+            List<Object[]> updates = new ArrayList<>();
+            List<Long> ids = jdbcTemplate.query(
+                    "SELECT id, email, latitude, longitude, shard_key FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> {
+                        long id = rs.getLong(1);
+                        Double latitude = rs.getObject(3, Double.class);
+                        Double longitude = rs.getObject(4, Double.class);
+                        String shardKey = shardRouter.shardKeyOf(rs.getString(2), latitude, longitude);
+                        if (!Objects.equals(shardKey, rs.getString(5))) {
+                            updates.add(new Object[] { shardKey, id });
+                        }
+                        return id;
+                    }, afterId, PAGE_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.batchUpdate("UPDATE users SET shard_key = ? WHERE id = ?", updates);
+            updated += updates.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (updated > 0) {
+            LOGGER.info("Updated shard key on {} users", updated);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.studysync.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -7,6 +8,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -17,6 +19,9 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    @Value("${matching.shard.secret:}")
+    private String shardSecret;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -25,11 +30,14 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/", "/login", "/oauth2/**", "/api/auth/**", "/h2-console/**", "/health")
                         .permitAll()
+                        .requestMatchers("/api/matching/shard/**", "/api/matching/lsh/benchmark")
+                        .hasRole("SHARD_NODE")
                         .anyRequest().authenticated())
                 .oauth2Login(oauth2 -> oauth2
                         .defaultSuccessUrl("/api/auth/oauth-success", true)
                         .failureUrl("http://localhost:3001/login?error=true"))
-                .headers(headers -> headers.frameOptions(frame -> frame.disable())); // For H2 Console
+                .headers(headers -> headers.frameOptions(frame -> frame.disable())) // For H2 Console
+                .addFilterBefore(new ShardNodeAuthenticationFilter(shardSecret), AnonymousAuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,43 @@
+package com.studysync.config;
+
+import com.studysync.service.ShardRouter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Authenticates matching requests forwarded by another shard node. The user's
+ * session lives on the node that forwarded the request, so the receiver trusts
+ * the shared node secret instead. Does nothing while no secret is configured.
+ */
+public class ShardNodeAuthenticationFilter extends OncePerRequestFilter {
+
+    private final byte[] secret;
+
+    public ShardNodeAuthenticationFilter(String secret) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String presented = request.getHeader(ShardRouter.SECRET_HEADER);
+        if (secret.length > 0 && presented != null && request.getRequestURI().startsWith("/api/matching/")
+                && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8))) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "shard-node-" + request.getHeader(ShardRouter.FORWARDED_HEADER), null,
+                    List.of(new SimpleGrantedAuthority("ROLE_SHARD_NODE"))));
+        }
+        filterChain.doFilter(request, response);
+    }
+}
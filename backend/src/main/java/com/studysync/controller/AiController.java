@@ -7,7 +7,9 @@ import com.studysync.service.GeminiAiService;
 import com.studysync.service.LocationService;
 import com.studysync.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
@@ -57,7 +60,15 @@ public class AiController {
                         double distance = locationService.calculateUserDistance(currentUser, targetUser);
                         suggestion.setDistanceKm(distance);
                     }
-                    return aiMatchSuggestionRepository.save(suggestion);
+                    if (suggestion.getId() == null) {
+                        return aiMatchSuggestionRepository.save(suggestion);
+                    }
+                    // Already stored by the suggestion cache; only the distance is new
+                    aiMatchSuggestionRepository.findById(suggestion.getId()).ifPresent(stored -> {
+                        stored.setDistanceKm(suggestion.getDistanceKm());
+                        aiMatchSuggestionRepository.save(stored);
+                    });
+                    return suggestion;
                 });
 
         return ResponseEntity.ok(suggestionMono);
@@ -148,6 +159,27 @@ public class AiController {
         return ResponseEntity.ok(recommendations);
     }
 
+    /**
+     * Same recommendations as a Server-Sent Events stream: one unnamed event per
+     * text chunk as Gemini produces it, then a "done" event.
+     */
+    @PostMapping(value = "/study-recommendations/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> streamStudyRecommendations(
+            @PathVariable Long userId,
+            @RequestBody StudyRecommendationRequest request) {
+
+        User user = userService.findById(userId);
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Flux<ServerSentEvent<String>> events = geminiAiService
+                .streamStudyRecommendations(user, request.getAvailableTimeSlots())
+                .map(chunk -> ServerSentEvent.builder(chunk).build())
+                .concatWith(Mono.just(ServerSentEvent.builder("").event("done").build()));
+        return ResponseEntity.ok(events);
+    }
+
     @PostMapping("/compatibility/{userId1}/{userId2}")
     public ResponseEntity<Mono<Double>> calculateCompatibility(
             @PathVariable Long userId1,
@@ -3,6 +3,7 @@ package com.studysync.controller;
 import com.studysync.model.CalendarEvent;
 import com.studysync.model.User;
 import com.studysync.repository.CalendarEventRepository;
+import com.studysync.repository.UserRepository;
 import com.studysync.service.CalendarService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -23,6 +24,9 @@ public class CalendarController {
     @Autowired
     private CalendarEventRepository calendarEventRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @PostMapping("/events")
     public ResponseEntity<CalendarEvent> createEvent(@RequestBody CreateEventRequest request) {
         // In a real app, you'd get the user from the security context
@@ -84,10 +88,17 @@ public class CalendarController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
 
-        User user1 = new User();
-        user1.setId(user1Id);
-        User user2 = new User();
-        user2.setId(user2Id);
+        // Loaded so their stated weekly availability narrows the common slots
+        User user1 = userRepository.findById(user1Id).orElseGet(() -> {
+            User placeholder = new User();
+            placeholder.setId(user1Id);
+            return placeholder;
+        });
+        User user2 = userRepository.findById(user2Id).orElseGet(() -> {
+            User placeholder = new User();
+            placeholder.setId(user2Id);
+            return placeholder;
+        });
 
         List<CalendarEvent> events1 = calendarEventRepository.findByUserAndStartTimeBetweenOrderByStartTimeAsc(user1,
                 startDate, endDate);
@@ -100,6 +111,20 @@ public class CalendarController {
         return ResponseEntity.ok(commonSlots);
     }
 
+    @GetMapping("/common-weekly-availability")
+    public ResponseEntity<List<String>> getCommonWeeklyAvailability(
+            @RequestParam Long user1Id,
+            @RequestParam Long user2Id) {
+
+        User user1 = userRepository.findById(user1Id).orElse(null);
+        User user2 = userRepository.findById(user2Id).orElse(null);
+        if (user1 == null || user2 == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(calendarService.findCommonWeeklyAvailability(user1, user2));
+    }
+
     @GetMapping("/study-suggestions/{userId}")
     public ResponseEntity<List<String>> getStudySuggestions(
             @PathVariable Long userId,
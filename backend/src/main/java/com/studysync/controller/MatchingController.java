@@ -1,12 +1,25 @@
 package com.studysync.controller;
 
+import com.studysync.dto.BatchSwipeRequest;
+import com.studysync.dto.DeckPageDto;
 import com.studysync.dto.MatchCandidateDto;
 import com.studysync.dto.MatchSummaryDto;
+import com.studysync.dto.StudyGroupDto;
+import com.studysync.dto.SwipeResultDto;
 import com.studysync.model.Match;
 import com.studysync.model.User;
+import com.studysync.service.ClassSetLshService;
 import com.studysync.service.MatchingService;
+import com.studysync.service.ProfileChangedEvent;
+import com.studysync.service.ShardForwarder;
+import com.studysync.service.ShardRouter;
+import com.studysync.service.StudyGroupService;
+import com.studysync.service.SwipeBatchService;
 import com.studysync.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,6 +27,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/matching")
@@ -27,8 +41,26 @@ public class MatchingController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SwipeBatchService swipeBatchService;
+
+    @Autowired
+    private StudyGroupService studyGroupService;
+
+    @Autowired
+    private ClassSetLshService classSetLshService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardForwarder shardForwarder;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @GetMapping("/potential-matches/{userId}")
-    public ResponseEntity<?> getPotentialMatches(@PathVariable Long userId) {
+    public ResponseEntity<?> getPotentialMatches(@PathVariable Long userId, HttpServletRequest request) {
         try {
             User user = userService.findById(userId);
             if (user == null) {
@@ -37,6 +69,9 @@ public class MatchingController {
                 response.put("message", "User not found");
                 return ResponseEntity.badRequest().body(response);
             }
+            if (isRemote(user, request)) {
+                return shardForwarder.forward(shardRouter.ownerOf(user), HttpMethod.GET, pathOf(request), null);
+            }
 
             List<MatchCandidateDto> potentialMatches = matchingService.findPotentialMatches(user);
             return ResponseEntity.ok(potentialMatches);
@@ -61,6 +96,11 @@ public class MatchingController {
             if (currentUser == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
             }
+            // The session lives on this node, so the owner gets the by-id endpoint
+            if (isRemote(currentUser, request)) {
+                return shardForwarder.forward(shardRouter.ownerOf(currentUser), HttpMethod.GET,
+                        "/api/matching/potential-matches/" + userId, null);
+            }
 
             List<MatchCandidateDto> potentialMatches = matchingService.findPotentialMatches(currentUser);
             return ResponseEntity.ok(potentialMatches);
@@ -72,8 +112,42 @@ public class MatchingController {
         }
     }
 
+    @GetMapping("/deck/{userId}")
+    public ResponseEntity<?> getDeckPage(@PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            HttpServletRequest request) {
+        try {
+            User user = userService.findById(userId);
+            if (user == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "User not found");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (isRemote(user, request)) {
+                return shardForwarder.forward(shardRouter.ownerOf(user), HttpMethod.GET, pathOf(request), null);
+            }
+
+            DeckPageDto page = matchingService.getDeckPage(user, cursor, size);
+            if (page == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "Deck cursor expired, request the deck again without a cursor");
+                return ResponseEntity.status(HttpStatus.GONE).body(response);
+            }
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to load deck");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PostMapping("/swipe")
-    public ResponseEntity<?> swipe(@RequestBody Map<String, Object> swipeData) {
+    public ResponseEntity<?> swipe(@RequestBody Map<String, Object> swipeData, HttpServletRequest request) {
         try {
             Long userId = Long.parseLong(swipeData.get("userId").toString());
             Long targetUserId = Long.parseLong(swipeData.get("targetUserId").toString());
@@ -88,6 +162,9 @@ public class MatchingController {
                 response.put("message", "User not found");
                 return ResponseEntity.badRequest().body(response);
             }
+            if (isRemote(user, request)) {
+                return shardForwarder.forward(shardRouter.ownerOf(user), HttpMethod.POST, pathOf(request), swipeData);
+            }
 
             Match matchResult = matchingService.processSwipe(user, targetUser, liked);
 
@@ -112,6 +189,51 @@ public class MatchingController {
         }
     }
 
+    @PostMapping("/swipe/batch")
+    public ResponseEntity<?> swipeBatch(@RequestBody BatchSwipeRequest request, HttpServletRequest httpRequest) {
+        try {
+            if (request.getUserId() == null || request.getSwipes() == null || request.getSwipes().isEmpty()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "userId and at least one swipe are required");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (request.getSwipes().size() > swipeBatchService.getMaxBatchSize()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "Too many swipes in one batch (max " + swipeBatchService.getMaxBatchSize() + ")");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (shardRouter.isSharded()) {
+                User user = userService.findById(request.getUserId());
+                if (user != null && isRemote(user, httpRequest)) {
+                    return shardForwarder.forward(shardRouter.ownerOf(user), HttpMethod.POST, pathOf(httpRequest),
+                            request);
+                }
+            }
+
+            List<SwipeResultDto> results = swipeBatchService.processSwipes(request.getUserId(), request.getSwipes());
+            if (results == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "User not found");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("results", results);
+            response.put("matches", results.stream().filter(SwipeResultDto::getIsMatch).collect(Collectors.toList()));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to process swipes");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/matches/{userId}")
     public ResponseEntity<?> getUserMatches(@PathVariable Long userId) {
         try {
@@ -157,6 +279,75 @@ public class MatchingController {
         }
     }
 
+    @GetMapping("/groups/{userId}")
+    public ResponseEntity<?> getStudyGroups(@PathVariable Long userId, HttpServletRequest request) {
+        try {
+            User user = userService.findById(userId);
+            if (user == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "User not found");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (isRemote(user, request)) {
+                return shardForwarder.forward(shardRouter.ownerOf(user), HttpMethod.GET, pathOf(request), null);
+            }
+
+            List<StudyGroupDto> groups = studyGroupService.getGroupsForUser(userId);
+            return ResponseEntity.ok(groups);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to get study groups");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Full scans of the class index, so only operators holding the node secret may
+    // run it (see SecurityConfig)
+    @GetMapping("/lsh/benchmark")
+    public ResponseEntity<?> benchmarkLsh(@RequestParam(defaultValue = "100") int samples,
+            @RequestParam(defaultValue = "20") int k) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("benchmark", classSetLshService.benchmark(Math.min(samples, 1000), Math.min(k, 100)));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to run LSH benchmark");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Called by another shard node after it saved a profile edit for a user owned here
+    @PostMapping("/shard/profile-changed/{userId}")
+    public ResponseEntity<?> onShardProfileChanged(@PathVariable Long userId) {
+        try {
+            User user = userService.findById(userId);
+            if (user == null || !shardRouter.isLocal(user)) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "User not owned by this node");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
+            eventPublisher.publishEvent(new ProfileChangedEvent(user));
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to refresh user");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<?> getUserStats(HttpServletRequest request) {
         try {
@@ -208,4 +399,18 @@ public class MatchingController {
             return ResponseEntity.badRequest().body(response);
         }
     }
+
+    // Users of another node's shard are served by that node; requests it already
+    // forwarded here are served regardless. The forwarded header only counts when
+    // the request authenticated with the node secret, so a client cannot set it
+    private boolean isRemote(User user, HttpServletRequest request) {
+        boolean forwarded = request.getHeader(ShardRouter.FORWARDED_HEADER) != null
+                && request.isUserInRole("SHARD_NODE");
+        return shardRouter.isSharded() && !forwarded && !shardRouter.isLocal(user);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getQueryString() == null ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.studysync.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchSwipeRequest {
+    private Long userId;
+    private List<Swipe> swipes = new ArrayList<>();
+
+    public BatchSwipeRequest() {
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public List<Swipe> getSwipes() {
+        return swipes;
+    }
+
+    public void setSwipes(List<Swipe> swipes) {
+        this.swipes = swipes;
+    }
+
+    public static class Swipe {
+        private Long targetUserId;
+        private boolean liked;
+
+        public Swipe() {
+        }
+
+        public Swipe(Long targetUserId, boolean liked) {
+            this.targetUserId = targetUserId;
+            this.liked = liked;
+        }
+
+        public Long getTargetUserId() {
+            return targetUserId;
+        }
+
+        public void setTargetUserId(Long targetUserId) {
+            this.targetUserId = targetUserId;
+        }
+
+        public boolean isLiked() {
+            return liked;
+        }
+
+        public void setLiked(boolean liked) {
+            this.liked = liked;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.studysync.dto;
+
+import java.util.List;
+
+public class DeckPageDto {
+    private List<MatchCandidateDto> candidates;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public DeckPageDto() {
+    }
+
+    public DeckPageDto(List<MatchCandidateDto> candidates, String nextCursor) {
+        this.candidates = candidates;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    public List<MatchCandidateDto> getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(List<MatchCandidateDto> candidates) {
+        this.candidates = candidates;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
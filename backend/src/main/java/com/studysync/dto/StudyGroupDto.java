@@ -0,0 +1,132 @@
+package com.studysync.dto;
+
+import java.util.List;
+
+public class StudyGroupDto {
+    private Long groupId;
+    private String classCode;
+    private int cohesionScore;
+    private String computedAt;
+    private List<Member> members;
+
+    public StudyGroupDto() {
+    }
+
+    public StudyGroupDto(Long groupId, String classCode, int cohesionScore, String computedAt, List<Member> members) {
+        this.groupId = groupId;
+        this.classCode = classCode;
+        this.cohesionScore = cohesionScore;
+        this.computedAt = computedAt;
+        this.members = members;
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public String getClassCode() {
+        return classCode;
+    }
+
+    public void setClassCode(String classCode) {
+        this.classCode = classCode;
+    }
+
+    public int getCohesionScore() {
+        return cohesionScore;
+    }
+
+    public void setCohesionScore(int cohesionScore) {
+        this.cohesionScore = cohesionScore;
+    }
+
+    public String getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(String computedAt) {
+        this.computedAt = computedAt;
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<Member> members) {
+        this.members = members;
+    }
+
+    public static class Member {
+        private Long userId;
+        private String name;
+        private String major;
+        private String studyYear;
+        private String studyStyle;
+        private String profilePictureUrl;
+
+        public Member() {
+        }
+
+        public Member(Long userId, String name, String major, String studyYear, String studyStyle,
+                String profilePictureUrl) {
+            this.userId = userId;
+            this.name = name;
+            this.major = major;
+            this.studyYear = studyYear;
+            this.studyStyle = studyStyle;
+            this.profilePictureUrl = profilePictureUrl;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(Long userId) {
+            this.userId = userId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getMajor() {
+            return major;
+        }
+
+        public void setMajor(String major) {
+            this.major = major;
+        }
+
+        public String getStudyYear() {
+            return studyYear;
+        }
+
+        public void setStudyYear(String studyYear) {
+            this.studyYear = studyYear;
+        }
+
+        public String getStudyStyle() {
+            return studyStyle;
+        }
+
+        public void setStudyStyle(String studyStyle) {
+            this.studyStyle = studyStyle;
+        }
+
+        public String getProfilePictureUrl() {
+            return profilePictureUrl;
+        }
+
+        public void setProfilePictureUrl(String profilePictureUrl) {
+            this.profilePictureUrl = profilePictureUrl;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.studysync.dto;
+
+import com.studysync.model.enums.MatchStatus;
+
+public class SwipeResultDto {
+    private Long targetUserId;
+    private boolean success;
+    private MatchStatus status;
+    private boolean isMatch;
+    private Long matchId;
+    private String message;
+
+    public SwipeResultDto() {
+    }
+
+    public SwipeResultDto(Long targetUserId, boolean success, MatchStatus status, boolean isMatch, Long matchId,
+            String message) {
+        this.targetUserId = targetUserId;
+        this.success = success;
+        this.status = status;
+        this.isMatch = isMatch;
+        this.matchId = matchId;
+        this.message = message;
+    }
+
+    public static SwipeResultDto failed(Long targetUserId, String message) {
+        return new SwipeResultDto(targetUserId, false, null, false, null, message);
+    }
+
+    public Long getTargetUserId() {
+        return targetUserId;
+    }
+
+    public void setTargetUserId(Long targetUserId) {
+        this.targetUserId = targetUserId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public MatchStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(MatchStatus status) {
+        this.status = status;
+    }
+
+    public boolean getIsMatch() {
+        return isMatch;
+    }
+
+    public void setIsMatch(boolean isMatch) {
+        this.isMatch = isMatch;
+    }
+
+    public Long getMatchId() {
+        return matchId;
+    }
+
+    public void setMatchId(Long matchId) {
+        this.matchId = matchId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
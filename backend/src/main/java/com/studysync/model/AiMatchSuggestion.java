@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ai_match_suggestions")
+@Table(name = "ai_match_suggestions", indexes = {
+        @Index(name = "idx_ai_suggestions_pair", columnList = "user_id, suggested_user_id")
+})
 public class AiMatchSuggestion {
 
     @Id
@@ -31,6 +33,10 @@ public class AiMatchSuggestion {
     @Column(name = "distance_km")
     private Double distanceKm; // Distance between users in kilometers
 
+    // Hash of both profiles' prompt fields the suggestion was made from, see AiSuggestionCache
+    @Column(name = "profile_hash", length = 64)
+    private String profileHash;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private SuggestionStatus status = SuggestionStatus.PENDING;
@@ -121,6 +127,14 @@ public class AiMatchSuggestion {
         this.distanceKm = distanceKm;
     }
 
+    public String getProfileHash() {
+        return profileHash;
+    }
+
+    public void setProfileHash(String profileHash) {
+        this.profileHash = profileHash;
+    }
+
     public SuggestionStatus getStatus() {
         return status;
     }
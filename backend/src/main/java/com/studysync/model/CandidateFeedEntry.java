@@ -0,0 +1,97 @@
+package com.studysync.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One precomputed row of a user's candidate feed. The feed for a user is
+ * replaced as a whole by the background refresh, so reads are a single range
+ * scan over (user_id, feed_rank).
+ */
+@Entity
+@Table(name = "candidate_feed", indexes = {
+        @Index(name = "idx_candidate_feed_user_rank", columnList = "user_id, feed_rank")
+})
+public class CandidateFeedEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "candidate_id", nullable = false)
+    private Long candidateId;
+
+    @Column(name = "feed_rank", nullable = false)
+    private Integer feedRank;
+
+    @Column(nullable = false)
+    private Double score; // 0.0 to 1.0
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Constructors
+    public CandidateFeedEntry() {
+        this.computedAt = LocalDateTime.now();
+    }
+
+    public CandidateFeedEntry(Long userId, Long candidateId, Integer feedRank, Double score) {
+        this.userId = userId;
+        this.candidateId = candidateId;
+        this.feedRank = feedRank;
+        this.score = score;
+        this.computedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCandidateId() {
+        return candidateId;
+    }
+
+    public void setCandidateId(Long candidateId) {
+        this.candidateId = candidateId;
+    }
+
+    public Integer getFeedRank() {
+        return feedRank;
+    }
+
+    public void setFeedRank(Integer feedRank) {
+        this.feedRank = feedRank;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
@@ -0,0 +1,132 @@
+package com.studysync.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the nightly candidate feed precomputation. Users are processed in
+ * id order and the checkpoint is advanced in the same transaction as each chunk's
+ * feeds, so a run that dies part-way resumes after the last user written.
+ */
+@Entity
+@Table(name = "feed_precompute_checkpoints")
+public class FeedPrecomputeCheckpoint {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "last_user_id", nullable = false)
+    private Long lastUserId;
+
+    @Column(name = "processed_users", nullable = false)
+    private Long processedUsers;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Constructors
+    public FeedPrecomputeCheckpoint() {
+    }
+
+    public FeedPrecomputeCheckpoint(String jobName) {
+        this.jobName = jobName;
+        this.status = STATUS_COMPLETED;
+        this.lastUserId = 0L;
+        this.processedUsers = 0L;
+    }
+
+    public boolean isRunning() {
+        return STATUS_RUNNING.equals(status);
+    }
+
+    public void start() {
+        this.status = STATUS_RUNNING;
+        this.lastUserId = 0L;
+        this.processedUsers = 0L;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = this.startedAt;
+        this.finishedAt = null;
+    }
+
+    public void advance(Long lastUserId, int users) {
+        this.lastUserId = lastUserId;
+        this.processedUsers += users;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.status = STATUS_COMPLETED;
+        this.updatedAt = LocalDateTime.now();
+        this.finishedAt = this.updatedAt;
+    }
+
+    // Getters and Setters
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getLastUserId() {
+        return lastUserId;
+    }
+
+    public void setLastUserId(Long lastUserId) {
+        this.lastUserId = lastUserId;
+    }
+
+    public Long getProcessedUsers() {
+        return processedUsers;
+    }
+
+    public void setProcessedUsers(Long processedUsers) {
+        this.processedUsers = processedUsers;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -7,7 +7,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "matches")
+@Table(name = "matches", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_matches_pair_key", columnNames = "pair_key")
+})
 public class Match {
 
     @Id
@@ -22,6 +24,11 @@ public class Match {
     @JoinColumn(name = "user2_id", nullable = false)
     private User user2;
 
+    // Unordered pair of user ids, see pairKey(); unique, so a pair has one row
+    // no matter who swiped first
+    @Column(name = "pair_key")
+    private Long pairKey;
+
     @Column(nullable = false)
     private Integer compatibilityScore; // 0-100
 
@@ -55,6 +62,32 @@ public class Match {
         this.createdAt = LocalDateTime.now();
     }
 
+    /**
+     * Canonical key for the unordered pair: the lower id in the high 32 bits and
+     * the higher id in the low 32 bits. Only ids in [0, 2^32) pack without
+     * colliding, so anything outside that range is rejected rather than folded
+     * onto another pair's key and unique constraint.
+     *
+     * @throws IllegalArgumentException if either id is negative or needs more than 32 bits
+     */
+    public static long pairKey(long userId, long otherUserId) {
+        if (((userId | otherUserId) >>> 32) != 0) {
+            throw new IllegalArgumentException("User ids " + userId + " and " + otherUserId
+                    + " do not fit a 32-bit pair key");
+        }
+        long low = Math.min(userId, otherUserId);
+        long high = Math.max(userId, otherUserId);
+        return (low << 32) | high;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void assignPairKey() {
+        if (user1 != null && user2 != null && user1.getId() != null && user2.getId() != null) {
+            this.pairKey = pairKey(user1.getId(), user2.getId());
+        }
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -80,6 +113,14 @@ public class Match {
         this.user2 = user2;
     }
 
+    public Long getPairKey() {
+        return pairKey;
+    }
+
+    public void setPairKey(Long pairKey) {
+        this.pairKey = pairKey;
+    }
+
     public Integer getCompatibilityScore() {
         return compatibilityScore;
     }
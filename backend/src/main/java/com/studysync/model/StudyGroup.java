@@ -0,0 +1,93 @@
+package com.studysync.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A study group proposed by the nightly group formation job for users who prefer
+ * studying in groups. Each run replaces the groups formed by the same node.
+ */
+@Entity
+@Table(name = "study_groups")
+public class StudyGroup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "class_code", nullable = false)
+    private String classCode;
+
+    @Column(name = "cohesion_score", nullable = false)
+    private Double cohesionScore; // mean pairwise compatibility, 0.0 to 1.0
+
+    @ElementCollection
+    @CollectionTable(name = "study_group_members", joinColumns = @JoinColumn(name = "group_id"), indexes = {
+            @Index(name = "idx_study_group_members_user", columnList = "user_id")
+    })
+    @Column(name = "user_id")
+    private List<Long> memberIds = new ArrayList<>();
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Shard node whose run formed the group
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    // Constructors
+    public StudyGroup() {
+        this.computedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getClassCode() {
+        return classCode;
+    }
+
+    public void setClassCode(String classCode) {
+        this.classCode = classCode;
+    }
+
+    public Double getCohesionScore() {
+        return cohesionScore;
+    }
+
+    public void setCohesionScore(Double cohesionScore) {
+        this.cohesionScore = cohesionScore;
+    }
+
+    public List<Long> getMemberIds() {
+        return memberIds;
+    }
+
+    public void setMemberIds(List<Long> memberIds) {
+        this.memberIds = memberIds;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(Integer nodeId) {
+        this.nodeId = nodeId;
+    }
+}
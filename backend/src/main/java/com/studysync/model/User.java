@@ -8,7 +8,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_shard_key", columnList = "shard_key")
+})
+@EntityListeners(UserShardKeyListener.class)
 public class User {
 
     @Id
@@ -96,6 +99,11 @@ public class User {
     @Column(name = "profile_completed")
     private boolean profileCompleted = false;
 
+    // Email domain or geo cell deciding which node's matching indexes hold the
+    // user; kept current by UserShardKeyListener
+    @Column(name = "shard_key")
+    private String shardKey;
+
     // Constructors
     public User() {
         this.createdAt = LocalDateTime.now();
@@ -307,6 +315,14 @@ public class User {
         this.profileCompleted = profileCompleted;
     }
 
+    public String getShardKey() {
+        return shardKey;
+    }
+
+    public void setShardKey(String shardKey) {
+        this.shardKey = shardKey;
+    }
+
     public Boolean getPrefersGroups() {
         return prefersGroups;
     }
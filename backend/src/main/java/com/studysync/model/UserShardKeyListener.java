@@ -0,0 +1,25 @@
+package com.studysync.model;
+
+import com.studysync.service.ShardRouter;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Recomputes a user's shard key from their email and coordinates on every save,
+ * so a move to another campus or geo cell is picked up with the edit. Created by
+ * Spring through Hibernate's bean container, hence the injected router.
+ */
+public class UserShardKeyListener {
+
+    private final ShardRouter shardRouter;
+
+    public UserShardKeyListener(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void assignShardKey(User user) {
+        user.setShardKey(shardRouter.shardKeyOf(user.getEmail(), user.getLatitude(), user.getLongitude()));
+    }
+}
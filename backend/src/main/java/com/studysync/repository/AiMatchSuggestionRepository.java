@@ -21,6 +21,12 @@ public interface AiMatchSuggestionRepository extends JpaRepository<AiMatchSugges
 
     Optional<AiMatchSuggestion> findByUserAndSuggestedUser(User user, User suggestedUser);
 
+    Optional<AiMatchSuggestion> findFirstByUserIdAndSuggestedUserIdOrderByUpdatedAtDesc(Long userId,
+            Long suggestedUserId);
+
+    Optional<AiMatchSuggestion> findFirstByUserIdAndSuggestedUserIdAndProfileHashOrderByUpdatedAtDesc(Long userId,
+            Long suggestedUserId, String profileHash);
+
     @Query("SELECT s FROM AiMatchSuggestion s WHERE s.user = :user AND s.status = :status AND s.compatibilityScore >= :minScore ORDER BY s.compatibilityScore DESC")
     List<AiMatchSuggestion> findHighQualityMatches(@Param("user") User user,
             @Param("status") AiMatchSuggestion.SuggestionStatus status,
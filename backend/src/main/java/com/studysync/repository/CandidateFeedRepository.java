@@ -0,0 +1,24 @@
+package com.studysync.repository;
+
+import com.studysync.model.CandidateFeedEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CandidateFeedRepository extends JpaRepository<CandidateFeedEntry, Long> {
+
+    List<CandidateFeedEntry> findByUserIdOrderByFeedRankAsc(Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM CandidateFeedEntry e WHERE e.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT DISTINCT e.userId FROM CandidateFeedEntry e")
+    List<Long> findUserIdsWithFeed();
+}
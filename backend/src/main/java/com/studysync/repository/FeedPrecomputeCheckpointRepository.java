@@ -0,0 +1,9 @@
+package com.studysync.repository;
+
+import com.studysync.model.FeedPrecomputeCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FeedPrecomputeCheckpointRepository extends JpaRepository<FeedPrecomputeCheckpoint, String> {
+}
@@ -5,8 +5,12 @@ import com.studysync.model.User;
 import com.studysync.model.enums.MatchStatus;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +32,28 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
 
     @org.springframework.data.jpa.repository.Query("SELECT m FROM Match m JOIN FETCH m.user1 JOIN FETCH m.user2 WHERE ((m.user1 = ?1 AND m.user2 = ?2) OR (m.user1 = ?2 AND m.user2 = ?1))")
     Match findByUsers(User user1, User user2);
+
+    // Partners the user swiped on, plus partners whose swipe on the user is no
+    // longer pending (rejected or matched)
+    @org.springframework.data.jpa.repository.Query("SELECT CASE WHEN m.user1.id = :userId THEN m.user2.id ELSE m.user1.id END "
+            + "FROM Match m WHERE m.user1.id = :userId OR (m.user2.id = :userId AND m.status <> :pending)")
+    List<Long> findSeenPartnerIds(@Param("userId") Long userId, @Param("pending") MatchStatus pending);
+
+    // (user1 id, user2 id, status) of every match involving any of the users
+    @org.springframework.data.jpa.repository.Query("SELECT m.user1.id, m.user2.id, m.status FROM Match m "
+            + "WHERE m.user1.id IN :userIds OR m.user2.id IN :userIds")
+    List<Object[]> findPairsInvolving(@Param("userIds") Collection<Long> userIds);
+
+    // Every match between the user and any of the partners, in either direction
+    @org.springframework.data.jpa.repository.Query("SELECT m FROM Match m WHERE (m.user1.id = :userId AND m.user2.id IN :partnerIds) "
+            + "OR (m.user2.id = :userId AND m.user1.id IN :partnerIds)")
+    List<Match> findBetweenUserAndPartners(@Param("userId") Long userId,
+            @Param("partnerIds") Collection<Long> partnerIds);
+
+    // Conditional transition; returns 0 if the row was changed concurrently
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("UPDATE Match m SET m.status = :to, m.matchedAt = :matchedAt "
+            + "WHERE m.id = :id AND m.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") MatchStatus from, @Param("to") MatchStatus to,
+            @Param("matchedAt") LocalDateTime matchedAt);
 }
@@ -0,0 +1,20 @@
+package com.studysync.repository;
+
+import com.studysync.model.StudyGroup;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StudyGroupRepository extends JpaRepository<StudyGroup, Long> {
+
+    @EntityGraph(attributePaths = { "memberIds" })
+    @Query("SELECT DISTINCT g FROM StudyGroup g WHERE :userId MEMBER OF g.memberIds ORDER BY g.cohesionScore DESC")
+    List<StudyGroup> findByMember(@Param("userId") Long userId);
+
+    long countByNodeId(Integer nodeId);
+}
@@ -1,9 +1,13 @@
 package com.studysync.repository;
 
 import com.studysync.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +22,55 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByMajorAndStudyYear(String major, String studyYear);
 
     List<User> findByLatitudeBetweenAndLongitudeBetween(double minLat, double maxLat, double minLng, double maxLng);
+
+    // Every shard key in use; each node keeps the ones it owns
+    @Query("SELECT DISTINCT u.shardKey FROM User u WHERE u.shardKey IS NOT NULL")
+    List<String> findShardKeys();
+
+    // (user id, class code) rows used to build the in-memory class index
+    @Query("SELECT u.id, c FROM User u JOIN u.classes c WHERE u.profileCompleted = true AND u.shardKey IN :shardKeys")
+    List<Object[]> findCompletedUserClassCodes(@Param("shardKeys") Collection<String> shardKeys);
+
+    // (user id, preferred location) rows used to build the class/location LSH index
+    @Query("SELECT u.id, l FROM User u JOIN u.preferredLocations l WHERE u.profileCompleted = true "
+            + "AND u.shardKey IN :shardKeys")
+    List<Object[]> findCompletedUserLocations(@Param("shardKeys") Collection<String> shardKeys);
+
+    // (user id, goal) rows used to build the attribute index
+    @Query("SELECT u.id, g FROM User u JOIN u.goals g WHERE u.profileCompleted = true AND u.shardKey IN :shardKeys")
+    List<Object[]> findCompletedUserGoals(@Param("shardKeys") Collection<String> shardKeys);
+
+    // (user id, major, study year, latitude, longitude, last active) rows used to build the attribute index
+    @Query("SELECT u.id, u.major, u.studyYear, u.latitude, u.longitude, u.lastActive FROM User u "
+            + "WHERE u.profileCompleted = true AND u.shardKey IN :shardKeys")
+    List<Object[]> findCompletedUserAttributes(@Param("shardKeys") Collection<String> shardKeys);
+
+    // Loads the collections used by scoring in the same query so candidates can be
+    // scored without lazy loading
+    @EntityGraph(attributePaths = { "classes", "goals" })
+    List<User> findByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = { "classes", "goals" })
+    Optional<User> findWithProfileById(Long id);
+
+    // Every collection, for users handed to controllers: they are read and
+    // serialized after the session has closed
+    @EntityGraph(attributePaths = { "classes", "goals", "preferredLocations" })
+    Optional<User> findDetailedById(Long id);
+
+    @EntityGraph(attributePaths = { "classes", "goals", "preferredLocations" })
+    Optional<User> findDetailedByEmail(String email);
+
+    @EntityGraph(attributePaths = { "classes", "goals" })
+    List<User> findByProfileCompletedTrueAndShardKeyIn(Collection<String> shardKeys);
+
+    @Query("SELECT u.id FROM User u WHERE u.profileCompleted = true AND u.prefersGroups = true "
+            + "AND u.shardKey IN :shardKeys")
+    List<Long> findGroupSeekerIds(@Param("shardKeys") Collection<String> shardKeys);
+
+    // In id order so the nightly feed precompute can resume after the last user done
+    @Query("SELECT u.id FROM User u WHERE u.profileCompleted = true AND u.active = true AND u.id > :afterId "
+            + "AND u.shardKey IN :shardKeys ORDER BY u.id")
+    List<Long> findRankableUserIdsAfter(@Param("afterId") Long afterId,
+            @Param("shardKeys") Collection<String> shardKeys);
 }
\ No newline at end of file
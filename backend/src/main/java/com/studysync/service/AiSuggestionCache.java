@@ -0,0 +1,209 @@
+package com.studysync.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.studysync.model.AiMatchSuggestion;
+import com.studysync.model.User;
+import com.studysync.repository.AiMatchSuggestionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.TreeSet;
+
+/**
+ * Read-through cache of Gemini match suggestions in front of the API call. Keyed
+ * by the directed user pair (the prompt describes the requester first) and
+ * stamped with a hash of both profiles' prompt fields, so a suggestion is reused
+ * until either profile changes what Gemini would be asked.
+ *
+ * Two tiers: a bounded in-memory map, and the ai_match_suggestions table, which
+ * survives restarts and is shared by all nodes. Only suggestions parsed from a
+ * Gemini response are stored; fallback scores are never cached, so the pair is
+ * asked again once Gemini is reachable.
+ */
+@Service
+public class AiSuggestionCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AiSuggestionCache.class);
+
+    private final AiMatchSuggestionRepository aiMatchSuggestionRepository;
+    private final Cache<Long, CachedSuggestion> suggestions;
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    public AiSuggestionCache(AiMatchSuggestionRepository aiMatchSuggestionRepository,
+            @Value("${matching.ai.suggestion-cache.max-size:100000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.aiMatchSuggestionRepository = aiMatchSuggestionRepository;
+        this.suggestions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+
+        Gauge.builder("matching.ai.suggestion-cache.size", suggestions, Cache::estimatedSize)
+                .description("AI match suggestions held in memory")
+                .register(meterRegistry);
+        this.memoryHits = Counter.builder("matching.ai.suggestion-cache.requests").tag("result", "memory")
+                .register(meterRegistry);
+        this.databaseHits = Counter.builder("matching.ai.suggestion-cache.requests").tag("result", "database")
+                .register(meterRegistry);
+        this.misses = Counter.builder("matching.ai.suggestion-cache.requests").tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hash of the fields of both profiles that go into the match prompt. Sets are
+     * sorted first so the hash does not depend on their iteration order.
+     */
+    public static String profileHash(User user, User suggestedUser) {
+        StringBuilder fields = new StringBuilder();
+        appendPromptFields(fields, user);
+        fields.append('\u001e');
+        appendPromptFields(fields, suggestedUser);
+        return sha256Hex(fields.toString());
+    }
+
+    static String sha256Hex(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The stored suggestion for the pair if it was made for the same profile
+     * hash, or empty. Checks memory first, then the database off the caller's
+     * thread, and keeps a database hit in memory.
+     */
+    public Mono<AiMatchSuggestion> find(User user, User suggestedUser, String profileHash) {
+        long key = directedKey(user.getId(), suggestedUser.getId());
+        CachedSuggestion cached = suggestions.getIfPresent(key);
+        if (cached != null && cached.profileHash.equals(profileHash)) {
+            memoryHits.increment();
+            return Mono.just(cached.toSuggestion(user, suggestedUser));
+        }
+
+        return Mono.fromCallable(() -> aiMatchSuggestionRepository
+                        .findFirstByUserIdAndSuggestedUserIdAndProfileHashOrderByUpdatedAtDesc(
+                                user.getId(), suggestedUser.getId(), profileHash)
+                        .orElse(null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(stored -> {
+                    CachedSuggestion loaded = new CachedSuggestion(stored);
+                    suggestions.put(key, loaded);
+                    databaseHits.increment();
+                    return loaded.toSuggestion(user, suggestedUser);
+                })
+                .switchIfEmpty(Mono.fromRunnable(misses::increment))
+                .onErrorResume(ex -> {
+                    LOGGER.warn("Could not read stored AI suggestion: {}", ex.getMessage());
+                    misses.increment();
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Saves a suggestion parsed from a Gemini response for the profile hash,
+     * updating the pair's latest row so its status is kept. Emits the suggestion
+     * with its row id; a failed write is logged and the suggestion is still
+     * served from memory.
+     */
+    public Mono<AiMatchSuggestion> store(AiMatchSuggestion suggestion, String profileHash) {
+        User user = suggestion.getUser();
+        User suggestedUser = suggestion.getSuggestedUser();
+        return Mono.fromCallable(() -> {
+                    AiMatchSuggestion row = aiMatchSuggestionRepository
+                            .findFirstByUserIdAndSuggestedUserIdOrderByUpdatedAtDesc(user.getId(),
+                                    suggestedUser.getId())
+                            .orElse(suggestion);
+                    if (row != suggestion) {
+                        row.setCompatibilityScore(suggestion.getCompatibilityScore());
+                        row.setAiReasoning(suggestion.getAiReasoning());
+                        row.setSharedInterests(suggestion.getSharedInterests());
+                    }
+                    row.setProfileHash(profileHash);
+                    return new CachedSuggestion(aiMatchSuggestionRepository.save(row));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(ex -> {
+                    LOGGER.warn("Could not store AI suggestion: {}", ex.getMessage());
+                    suggestion.setProfileHash(profileHash);
+                    return Mono.just(new CachedSuggestion(suggestion));
+                })
+                .map(stored -> {
+                    suggestions.put(directedKey(user.getId(), suggestedUser.getId()), stored);
+                    return stored.toSuggestion(user, suggestedUser);
+                });
+    }
+
+    private static void appendPromptFields(StringBuilder fields, User user) {
+        fields.append(user.getName()).append('\u001f')
+                .append(user.getMajor()).append('\u001f')
+                .append(user.getStudyYear()).append('\u001f')
+                .append(sorted(user.getClasses())).append('\u001f')
+                .append(user.getStudyStyle()).append('\u001f')
+                .append(sorted(user.getGoals())).append('\u001f')
+                .append(user.getAvailability());
+    }
+
+    private static Collection<String> sorted(Collection<String> values) {
+        TreeSet<String> sorted = new TreeSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null) {
+                    sorted.add(value);
+                }
+            }
+        }
+        return sorted;
+    }
+
+    // Ordered pair: the suggestion for (u, v) is written from u's side
+    private static long directedKey(long userId, long suggestedUserId) {
+        return (userId << 32) | (suggestedUserId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The cached fields of a suggestion, copied so callers never share or mutate
+     * the cached value and no lazy user association is touched outside a session.
+     */
+    private static final class CachedSuggestion {
+        private final Long id;
+        private final String profileHash;
+        private final Double compatibilityScore;
+        private final String aiReasoning;
+        private final String sharedInterests;
+
+        private CachedSuggestion(AiMatchSuggestion suggestion) {
+            this.id = suggestion.getId();
+            this.profileHash = suggestion.getProfileHash();
+            this.compatibilityScore = suggestion.getCompatibilityScore();
+            this.aiReasoning = suggestion.getAiReasoning();
+            this.sharedInterests = suggestion.getSharedInterests();
+        }
+
+        private AiMatchSuggestion toSuggestion(User user, User suggestedUser) {
+            AiMatchSuggestion suggestion = new AiMatchSuggestion(user, suggestedUser, compatibilityScore,
+                    aiReasoning);
+            suggestion.setId(id);
+            suggestion.setProfileHash(profileHash);
+            suggestion.setSharedInterests(sharedInterests);
+            return suggestion;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+import com.studysync.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory indexes over profile attributes other than classes, backing the
+ * nearby, shared-goals, major/year and recently-active candidate sources:
+ * <ul>
+ * <li>a grid of {@link #CELL_DEGREES} cells over home coordinates,</li>
+ * <li>users grouped by their exact set of goals,</li>
+ * <li>users grouped by major and study year,</li>
+ * <li>users ordered by last activity, bumped on deck views and swipes.</li>
+ * </ul>
+ * Holds users with a completed profile in this node's shards, like the class
+ * index, and is kept current by {@link ProfileChangeListener}.
+ */
+@Service
+public class AttributeIndexService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AttributeIndexService.class);
+
+    // ~11 km of latitude per cell
+    static final double CELL_DEGREES = 0.1;
+
+    private static final Comparator<Activity> MOST_RECENT_FIRST = Comparator
+            .comparingLong((Activity activity) -> activity.millis).reversed()
+            .thenComparingLong(activity -> activity.userId);
+
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+
+    private final Map<Long, Attributes> attributesByUser = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> usersByCell = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> usersByGoalMask = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> usersByMajorYear = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Activity> byActivity = new ConcurrentSkipListSet<>(MOST_RECENT_FIRST);
+    private final Map<String, Integer> goalIds = new ConcurrentHashMap<>();
+
+    public AttributeIndexService(UserRepository userRepository, ShardRouter shardRouter) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public synchronized void rebuild() {
+        attributesByUser.clear();
+        usersByCell.clear();
+        usersByGoalMask.clear();
+        usersByMajorYear.clear();
+        byActivity.clear();
+
+        List<String> shardKeys = shardRouter.localShardKeys(userRepository.findShardKeys());
+        if (shardKeys.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> goalMasks = new HashMap<>();
+        for (Object[] row : userRepository.findCompletedUserGoals(shardKeys)) {
+            goalMasks.merge((Long) row[0], goalBit((String) row[1]), (a, b) -> a | b);
+        }
+        for (Object[] row : userRepository.findCompletedUserAttributes(shardKeys)) {
+            Long userId = (Long) row[0];
+            put(new Attributes(userId, (Double) row[3], (Double) row[4],
+                    goalMasks.getOrDefault(userId, 0L), majorYearKey((String) row[1], (String) row[2]),
+                    toMillis(row[5])));
+        }
+        LOGGER.info("Attribute index built for {} users ({} cells, {} goal sets, {} major/year groups)",
+                attributesByUser.size(), usersByCell.size(), usersByGoalMask.size(), usersByMajorYear.size());
+    }
+
+    /**
+     * Re-index a user after a profile edit, or drop them once they are no longer
+     * matchable here. Keeps the user's last activity.
+     */
+    public synchronized void updateUser(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        Attributes previous = remove(user.getId());
+        if (!user.isProfileCompleted() || !shardRouter.isLocal(user)) {
+            return;
+        }
+
+        long goalMask = 0L;
+        if (user.getGoals() != null) {
+            for (String goal : user.getGoals()) {
+                goalMask |= goalBit(goal);
+            }
+        }
+        long lastActive = previous != null ? previous.lastActiveMillis : toMillis(user.getLastActive());
+        put(new Attributes(user.getId(), user.getLatitude(), user.getLongitude(), goalMask,
+                majorYearKey(user.getMajor(), user.getStudyYear()), lastActive));
+    }
+
+    /**
+     * Marks the user as active now, moving them to the front of the recently
+     * active order. Called on every deck view and swipe, so it only locks the
+     * user's own map entry; the service monitor is left to rebuilds and profile
+     * updates.
+     */
+    public void recordActivity(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        attributesByUser.computeIfPresent(userId, (id, attributes) -> {
+            byActivity.remove(new Activity(attributes.lastActiveMillis, id));
+            attributes.lastActiveMillis = System.currentTimeMillis();
+            byActivity.add(new Activity(attributes.lastActiveMillis, id));
+            return attributes;
+        });
+    }
+
+    public Attributes getAttributes(Long userId) {
+        return attributesByUser.get(userId);
+    }
+
+    /**
+     * Users in the cells within {@code radius} cells of latitude and
+     * {@code lngRadius} cells of longitude around the given point. Cells are
+     * visited nearest first, so when {@code limit} cuts the scan short it is the
+     * farthest users that are left out.
+     */
+    public void collectNearby(double latitude, double longitude, int radius, int lngRadius,
+            Collection<Long> into, int limit) {
+        double latPosition = latitude / CELL_DEGREES;
+        double lngPosition = longitude / CELL_DEGREES;
+        // A longitude cell is narrower than a latitude cell by cos(latitude)
+        double lngScale = Math.max(0.05, Math.cos(Math.toRadians(latitude)));
+        long latCell = cellOf(latitude);
+        long lngCell = cellOf(longitude);
+
+        int width = 2 * lngRadius + 1;
+        int cells = (2 * radius + 1) * width;
+        long[] cellKeys = new long[cells];
+        double[] distances = new double[cells];
+        Integer[] order = new Integer[cells];
+        for (int i = 0; i < cells; i++) {
+            long lat = latCell - radius + i / width;
+            long lng = lngCell - lngRadius + i % width;
+            cellKeys[i] = cellKey(lat, lng);
+            // Distance from the point to the cell's nearest edge, in latitude cells
+            double latGap = Math.max(0.0, Math.max(lat - latPosition, latPosition - (lat + 1)));
+            double lngGap = Math.max(0.0, Math.max(lng - lngPosition, lngPosition - (lng + 1))) * lngScale;
+            distances[i] = latGap * latGap + lngGap * lngGap;
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> distances[i]));
+
+        for (int i : order) {
+            Set<Long> members = usersByCell.get(cellKeys[i]);
+            if (members == null) {
+                continue;
+            }
+            for (Long member : members) {
+                if (into.size() >= limit) {
+                    return;
+                }
+                into.add(member);
+            }
+        }
+    }
+
+    public Map<Long, Set<Long>> getUsersByGoalMask() {
+        return usersByGoalMask;
+    }
+
+    public Set<Long> getUsersWithMajorYear(String majorYearKey) {
+        return majorYearKey != null ? usersByMajorYear.getOrDefault(majorYearKey, Set.of()) : Set.of();
+    }
+
+    /**
+     * Indexed users, most recently active first. Weakly consistent with
+     * concurrent updates.
+     */
+    public Iterator<Activity> mostRecentlyActive() {
+        return byActivity.iterator();
+    }
+
+    private void put(Attributes attributes) {
+        attributesByUser.put(attributes.userId, attributes);
+        if (attributes.hasLocation()) {
+            usersByCell.computeIfAbsent(cellKey(cellOf(attributes.latitude), cellOf(attributes.longitude)),
+                    key -> ConcurrentHashMap.newKeySet()).add(attributes.userId);
+        }
+        if (attributes.goalMask != 0L) {
+            usersByGoalMask.computeIfAbsent(attributes.goalMask, key -> ConcurrentHashMap.newKeySet())
+                    .add(attributes.userId);
+        }
+        if (attributes.majorYear != null) {
+            usersByMajorYear.computeIfAbsent(attributes.majorYear, key -> ConcurrentHashMap.newKeySet())
+                    .add(attributes.userId);
+        }
+        byActivity.add(new Activity(attributes.lastActiveMillis, attributes.userId));
+    }
+
+    private Attributes remove(Long userId) {
+        Attributes attributes = attributesByUser.remove(userId);
+        if (attributes == null) {
+            return null;
+        }
+        if (attributes.hasLocation()) {
+            removeFrom(usersByCell, cellKey(cellOf(attributes.latitude), cellOf(attributes.longitude)), userId);
+        }
+        removeFrom(usersByGoalMask, attributes.goalMask, userId);
+        removeFrom(usersByMajorYear, attributes.majorYear, userId);
+        byActivity.remove(new Activity(attributes.lastActiveMillis, userId));
+        return attributes;
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> index, K key, Long userId) {
+        Set<Long> members = key != null ? index.get(key) : null;
+        if (members != null) {
+            members.remove(userId);
+            if (members.isEmpty()) {
+                index.remove(key, members);
+            }
+        }
+    }
+
+    // Campuses use a handful of goals; past 64 ids the mask folds. This index only
+    // feeds recall, so a folded bit can add candidates but never changes a score:
+    // MatchFeatureService keeps every goal on its own bit
+    private long goalBit(String goal) {
+        if (goal == null) {
+            return 0L;
+        }
+        return 1L << (goalIds.computeIfAbsent(goal, key -> goalIds.size()) & 63);
+    }
+
+    static String majorYearKey(String major, String studyYear) {
+        if (major == null || major.isBlank()) {
+            return null;
+        }
+        return major.trim().toLowerCase(Locale.ROOT) + "|" + (studyYear != null ? studyYear.trim() : "");
+    }
+
+    static long cellOf(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(long latCell, long lngCell) {
+        return (latCell << 32) ^ (lngCell & 0xFFFFFFFFL);
+    }
+
+    private static long toMillis(Object value) {
+        LocalDateTime time = value instanceof Timestamp timestamp ? timestamp.toLocalDateTime()
+                : value instanceof LocalDateTime localDateTime ? localDateTime : null;
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
+    /**
+     * Indexed attributes of one user.
+     */
+    public static final class Attributes {
+        private final long userId;
+        private final double latitude;
+        private final double longitude;
+        private final long goalMask;
+        private final String majorYear;
+        private volatile long lastActiveMillis;
+
+        private Attributes(long userId, Double latitude, Double longitude, long goalMask, String majorYear,
+                long lastActiveMillis) {
+            this.userId = userId;
+            this.latitude = latitude != null ? latitude : Double.NaN;
+            this.longitude = longitude != null ? longitude : Double.NaN;
+            this.goalMask = goalMask;
+            this.majorYear = majorYear;
+            this.lastActiveMillis = lastActiveMillis;
+        }
+
+        public boolean hasLocation() {
+            return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public long getGoalMask() {
+            return goalMask;
+        }
+
+        public String getMajorYear() {
+            return majorYear;
+        }
+
+        public long getLastActiveMillis() {
+            return lastActiveMillis;
+        }
+    }
+
+    /**
+     * A user's place in the recently-active order.
+     */
+    public static final class Activity {
+        private final long millis;
+        private final long userId;
+
+        private Activity(long millis, long userId) {
+            this.millis = millis;
+            this.userId = userId;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+    }
+}
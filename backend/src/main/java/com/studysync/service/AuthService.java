@@ -7,6 +7,7 @@ import com.studysync.model.enums.StudyGoal;
 import com.studysync.model.enums.StudyStyle;
 import com.studysync.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +26,9 @@ public class AuthService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public User registerUser(RegisterRequest registerRequest) {
         User user = new User();
         user.setUsername(registerRequest.getUsername());
@@ -94,6 +98,8 @@ public class AuthService {
         user.setProfileCompleted(true);
         user.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new ProfileChangedEvent(savedUser));
+        return savedUser;
     }
 }
\ No newline at end of file
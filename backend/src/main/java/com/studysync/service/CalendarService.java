@@ -2,23 +2,37 @@ package com.studysync.service;
 
 import com.studysync.model.CalendarEvent;
 import com.studysync.model.User;
+import com.studysync.util.WeeklyAvailability;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CalendarService {
 
+    private static final Duration STUDY_SLOT = Duration.ofHours(2);
+
     /**
      * Find available time slots for a user based on their calendar events
      */
     public List<String> findAvailableTimeSlots(User user, List<CalendarEvent> userEvents,
             LocalDateTime startDate, LocalDateTime endDate) {
-        List<String> availableSlots = new ArrayList<>();
+        return findAvailableSlotStarts(userEvents, startDate, endDate).stream()
+                .map(start -> formatTimeSlot(start, start.plus(STUDY_SLOT)))
+                .collect(Collectors.toList());
+    }
+
+    // Start times of the free study slots, each STUDY_SLOT long
+    private List<LocalDateTime> findAvailableSlotStarts(List<CalendarEvent> userEvents,
+            LocalDateTime startDate, LocalDateTime endDate) {
+        List<LocalDateTime> availableSlots = new ArrayList<>();
 
         // Generate potential time slots (e.g., every hour from 8 AM to 10 PM)
         LocalDateTime current = startDate.withHour(8).withMinute(0).withSecond(0);
@@ -32,7 +46,7 @@ public class CalendarService {
                 continue;
             }
 
-            LocalDateTime slotEnd = current.plusHours(2); // 2-hour study slots
+            LocalDateTime slotEnd = current.plus(STUDY_SLOT);
 
             // Check if this slot conflicts with any existing events
             final LocalDateTime finalCurrent = current;
@@ -41,8 +55,7 @@ public class CalendarService {
                     .noneMatch(event -> isTimeSlotConflicting(finalCurrent, finalSlotEnd, event));
 
             if (isAvailable) {
-                String slotDescription = formatTimeSlot(current, slotEnd);
-                availableSlots.add(slotDescription);
+                availableSlots.add(current);
             }
 
             current = current.plusHours(1); // Check every hour
@@ -52,19 +65,37 @@ public class CalendarService {
     }
 
     /**
-     * Find common available time slots between two users
+     * Find common available time slots between two users. When both users have
+     * stated a weekly availability, only slots inside both schedules are kept.
      */
     public List<String> findCommonAvailableSlots(User user1, List<CalendarEvent> events1,
             User user2, List<CalendarEvent> events2,
             LocalDateTime startDate, LocalDateTime endDate) {
-        List<String> user1Available = findAvailableTimeSlots(user1, events1, startDate, endDate);
-        List<String> user2Available = findAvailableTimeSlots(user2, events2, startDate, endDate);
+        List<LocalDateTime> user1Available = findAvailableSlotStarts(events1, startDate, endDate);
+        Set<LocalDateTime> user2Available = new HashSet<>(findAvailableSlotStarts(events2, startDate, endDate));
+
+        long[] weekly1 = WeeklyAvailability.parse(user1.getAvailability());
+        long[] weekly2 = WeeklyAvailability.parse(user2.getAvailability());
+        long[] sharedWeekly = WeeklyAvailability.isEmpty(weekly1) || WeeklyAvailability.isEmpty(weekly2)
+                ? null
+                : WeeklyAvailability.intersect(weekly1, weekly2);
 
         return user1Available.stream()
                 .filter(user2Available::contains)
+                .filter(start -> sharedWeekly == null || isWithinWeekly(start, start.plus(STUDY_SLOT), sharedWeekly))
+                .map(start -> formatTimeSlot(start, start.plus(STUDY_SLOT)))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Weekly windows in which both users said they are available.
+     */
+    public List<String> findCommonWeeklyAvailability(User user1, User user2) {
+        return WeeklyAvailability.describe(WeeklyAvailability.intersect(
+                WeeklyAvailability.parse(user1.getAvailability()),
+                WeeklyAvailability.parse(user2.getAvailability())));
+    }
+
     /**
      * Suggest optimal study session times based on user preferences and
      * availability
@@ -154,6 +185,22 @@ public class CalendarService {
         return start.format(formatter) + " - " + end.format(DateTimeFormatter.ofPattern("HH:mm"));
     }
 
+    private boolean isWithinWeekly(LocalDateTime start, LocalDateTime end, long[] weekly) {
+        // Checked one day at a time, since a late slot can run past midnight
+        LocalDateTime from = start;
+        while (from.isBefore(end)) {
+            LocalDateTime midnight = from.toLocalDate().plusDays(1).atStartOfDay();
+            LocalDateTime to = end.isBefore(midnight) ? end : midnight;
+            int fromMinute = from.getHour() * 60 + from.getMinute();
+            int toMinute = to.equals(midnight) ? 24 * 60 : to.getHour() * 60 + to.getMinute();
+            if (!WeeklyAvailability.covers(weekly, from.getDayOfWeek(), fromMinute, toMinute)) {
+                return false;
+            }
+            from = to;
+        }
+        return true;
+    }
+
     private boolean isPreferredStudyTime(String timeSlot, User user) {
         // This could be enhanced based on user's study style preferences
         // For now, prioritize afternoon and evening slots
@@ -167,22 +214,10 @@ public class CalendarService {
     }
 
     /**
-     * Parse availability string from user profile and convert to time slots
+     * Parse availability string from user profile and convert to time slots,
+     * e.g. {"Monday": ["09:00-12:00"]} becomes "Monday 09:00 - 12:00"
      */
     public List<String> parseUserAvailability(String availabilityJson) {
-        List<String> slots = new ArrayList<>();
-
-        // This is a simplified parser - in a real app you'd use proper JSON parsing
-        if (availabilityJson != null && !availabilityJson.isEmpty()) {
-            // Example: Parse JSON like {"Monday": ["09:00-12:00", "14:00-17:00"]}
-            // For now, return some default slots
-            slots.add("Monday 14:00 - 16:00");
-            slots.add("Tuesday 10:00 - 12:00");
-            slots.add("Wednesday 15:00 - 17:00");
-            slots.add("Thursday 13:00 - 15:00");
-            slots.add("Friday 11:00 - 13:00");
-        }
-
-        return slots;
+        return WeeklyAvailability.describe(WeeklyAvailability.parse(availabilityJson));
     }
 }
\ No newline at end of file
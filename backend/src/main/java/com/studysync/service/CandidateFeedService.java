@@ -0,0 +1,264 @@
+package com.studysync.service;
+
+import com.studysync.model.CandidateFeedEntry;
+import com.studysync.repository.CandidateFeedRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Materialized per-user candidate feeds. Profile changes mark the affected users
+ * dirty and a scheduled worker recomputes their feeds in batches, so serving a
+ * deck is a single indexed read of {@code candidate_feed}. The nightly
+ * {@link FeedPrecomputeService} rebuilds every feed through the same write path.
+ */
+@Service
+public class CandidateFeedService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CandidateFeedService.class);
+
+    private static final String DELETE_FEED = "DELETE FROM candidate_feed WHERE user_id = ?";
+    private static final String INSERT_ENTRY = "INSERT INTO candidate_feed "
+            + "(user_id, candidate_id, feed_rank, score, computed_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final CandidateFeedRepository candidateFeedRepository;
+    private final CandidateRanker candidateRanker;
+    private final ClassIndexService classIndexService;
+    private final MatchFeatureService matchFeatureService;
+    private final SeenFilterService seenFilterService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Feed rewrites are delete-then-insert, so two writers on the same user must
+    // not overlap; held until commit, across both the worker and the nightly job
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Users whose last computed feed had no candidates; they have no rows, but
+    // there is nothing to gain from ranking them online either
+    private final Set<Long> emptyFeeds = ConcurrentHashMap.newKeySet();
+
+    // FIFO of dirty users; dirtySince de-duplicates and remembers when each was
+    // first marked so the refresh lag can be reported
+    private final Queue<Long> dirtyQueue = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Long> dirtySince = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    private final Counter refreshedUsers;
+    private final Timer batchDuration;
+    private final DistributionSummary batchSizes;
+
+    @Value("${matching.feed.size:50}")
+    private int feedSize;
+
+    @Value("${matching.feed.batch-size:100}")
+    private int batchSize;
+
+    public CandidateFeedService(CandidateFeedRepository candidateFeedRepository,
+            CandidateRanker candidateRanker,
+            ClassIndexService classIndexService,
+            MatchFeatureService matchFeatureService,
+            SeenFilterService seenFilterService,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.candidateFeedRepository = candidateFeedRepository;
+        this.candidateRanker = candidateRanker;
+        this.classIndexService = classIndexService;
+        this.matchFeatureService = matchFeatureService;
+        this.seenFilterService = seenFilterService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("matching.feed.dirty.users", dirtySince, Map::size)
+                .description("Users whose candidate feed is waiting to be refreshed")
+                .register(meterRegistry);
+        Gauge.builder("matching.feed.lag.seconds", this, CandidateFeedService::currentLagSeconds)
+                .description("Age of the oldest pending feed refresh")
+                .register(meterRegistry);
+        this.refreshedUsers = Counter.builder("matching.feed.refreshed.users")
+                .description("Candidate feeds recomputed by the background worker")
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("matching.feed.batch.duration")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("matching.feed.batch.size")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues every indexed user that has no feed yet. Runs after the class index
+     * and feature vectors have been built.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void bootstrap() {
+        Set<Long> withFeed = new HashSet<>(candidateFeedRepository.findUserIdsWithFeed());
+        int queued = 0;
+        for (Long userId : matchFeatureService.getIndexedUserIds()) {
+            if (!withFeed.contains(userId)) {
+                markDirty(userId);
+                queued++;
+            }
+        }
+        ready = true;
+        LOGGER.info("Candidate feed worker ready, {} feeds queued for initial build", queued);
+    }
+
+    public void markDirty(Long userId) {
+        if (userId != null && dirtySince.putIfAbsent(userId, System.currentTimeMillis()) == null) {
+            dirtyQueue.add(userId);
+        }
+    }
+
+    /**
+     * A profile change can move the user into or out of other users' feeds, so
+     * everyone sharing one of their old or new classes is refreshed as well.
+     */
+    public void onProfileChanged(Long userId, Collection<Long> affectedUsers) {
+        markDirty(userId);
+        for (Long affected : affectedUsers) {
+            markDirty(affected);
+        }
+    }
+
+    /**
+     * The user's feed in rank order. Feeds are built without already-seen users,
+     * but swipes made since the last refresh are only filtered out by the caller.
+     */
+    public List<CandidateFeedEntry> readFeed(Long userId, int limit) {
+        return candidateFeedRepository.findByUserIdOrderByFeedRankAsc(userId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * True if the user's feed was computed and came out empty, as opposed to not
+     * having been computed yet.
+     */
+    public boolean hasEmptyFeed(Long userId) {
+        return emptyFeeds.contains(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${matching.feed.refresh-interval-ms:5000}")
+    public void refreshDirtyFeeds() {
+        if (!ready || dirtyQueue.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Long> batch = new ArrayList<>(batchSize);
+        Long userId;
+        while (batch.size() < batchSize && (userId = dirtyQueue.poll()) != null) {
+            // Cleared before recomputing so a change that lands mid-refresh queues
+            // the user again instead of being lost
+            dirtySince.remove(userId);
+            batch.add(userId);
+        }
+
+        for (Long id : batch) {
+            try {
+                refreshFeed(id);
+                refreshedUsers.increment();
+            } catch (Exception ex) {
+                LOGGER.warn("Candidate feed refresh failed for user {}: {}", id, ex.getMessage());
+                markDirty(id);
+            }
+        }
+
+        batchDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        LOGGER.debug("Refreshed {} candidate feeds, {} still pending", batch.size(), dirtySince.size());
+    }
+
+    public void refreshFeed(Long userId) {
+        CandidateRanker.RankedCandidates ranked = computeFeed(userId, seenFilterService.seenBy(userId));
+        writeFeeds(Map.of(userId, ranked), null);
+    }
+
+    /**
+     * The user's top candidates by score, without users they have already seen.
+     * Empty when the user has no completed profile.
+     */
+    public CandidateRanker.RankedCandidates computeFeed(Long userId, LongPredicate seen) {
+        MatchFeatures features = matchFeatureService.getFeatures(userId);
+        if (features == null) {
+            return new CandidateRanker.RankedCandidates(new long[0], new double[0]);
+        }
+        Set<Long> recalled = candidateRanker.recall(userId, classIndexService.getIndexedClasses(userId), seen);
+        return candidateRanker.rank(features, recalled, feedSize, seen);
+    }
+
+    /**
+     * Replaces the feeds of the given users in one transaction, using JDBC batches
+     * for the delete and the insert. {@code alsoInTransaction}, if given, runs in
+     * the same transaction (the nightly job advances its checkpoint there).
+     */
+    public void writeFeeds(Map<Long, CandidateRanker.RankedCandidates> feeds, Runnable alsoInTransaction) {
+        if (feeds.isEmpty()) {
+            return;
+        }
+        List<Long> userIds = new ArrayList<>(feeds.keySet());
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp computedAt = Timestamp.valueOf(LocalDateTime.now());
+        for (Long userId : userIds) {
+            CandidateRanker.RankedCandidates ranked = feeds.get(userId);
+            for (int rank = 0; rank < ranked.size(); rank++) {
+                rows.add(new Object[] { userId, ranked.idAt(rank), rank, ranked.scoreAt(rank), computedAt });
+            }
+        }
+
+        writeLock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(DELETE_FEED, userIds, userIds.size(),
+                        (ps, userId) -> ps.setLong(1, userId));
+                jdbcTemplate.batchUpdate(INSERT_ENTRY, rows);
+                if (alsoInTransaction != null) {
+                    alsoInTransaction.run();
+                }
+            });
+        } finally {
+            writeLock.unlock();
+        }
+
+        feeds.forEach((userId, ranked) -> {
+            if (ranked.size() == 0) {
+                emptyFeeds.add(userId);
+            } else {
+                emptyFeeds.remove(userId);
+            }
+        });
+    }
+
+    private double currentLagSeconds() {
+        Long oldest = dirtyQueue.peek();
+        Long markedAt = oldest != null ? dirtySince.get(oldest) : null;
+        return markedAt != null ? (System.currentTimeMillis() - markedAt) / 1000.0 : 0.0;
+    }
+}
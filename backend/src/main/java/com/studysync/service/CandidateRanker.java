@@ -0,0 +1,226 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Stage 1 of the match pipeline: recall from every {@link CandidateSource}
+ * (classes, class/location LSH, similar students, nearby, shared goals,
+ * major/year, recently active) and deterministic scoring on in-memory feature
+ * vectors. Touches no database, so it is shared by the online deck path and the
+ * background candidate feed refresh.
+ */
+@Component
+public class CandidateRanker {
+
+    // Higher relevance first; on ties the source registered first
+    private static final Comparator<SourceHead> BY_RELEVANCE = Comparator
+            .comparingDouble((SourceHead head) -> head.candidate.getRelevance()).reversed()
+            .thenComparingInt(head -> head.source);
+
+    private final MatchFeatureService matchFeatureService;
+    private final PairScoreCache pairScoreCache;
+    private final List<CandidateSource> sources;
+    private final MatchingMetrics matchingMetrics;
+
+    @Value("${matching.recall.budget:1000}")
+    private int recallBudget;
+
+    public CandidateRanker(MatchFeatureService matchFeatureService, PairScoreCache pairScoreCache,
+            List<CandidateSource> sources, MatchingMetrics matchingMetrics) {
+        this.matchFeatureService = matchFeatureService;
+        this.pairScoreCache = pairScoreCache;
+        this.sources = sources;
+        this.matchingMetrics = matchingMetrics;
+    }
+
+    /**
+     * Up to {@code recall.budget} distinct candidate ids, merged from every source
+     * by relevance: a k-way merge over the sources' best-first streams, so each
+     * source is only read as far as its candidates keep winning a slot. Excluded
+     * users and the requester are dropped without using up the budget. Each
+     * source's time and the number of new candidates it contributed are recorded.
+     */
+    public Set<Long> recall(Long userId, Collection<String> classes, LongPredicate excluded) {
+        int sourceCount = sources.size();
+        long[] nanos = new long[sourceCount];
+        int[] yielded = new int[sourceCount];
+        Set<Long> recalled = new LinkedHashSet<>();
+
+        PriorityQueue<SourceHead> heads = new PriorityQueue<>(Math.max(1, sourceCount), BY_RELEVANCE);
+        for (int source = 0; source < sourceCount; source++) {
+            long start = System.nanoTime();
+            Iterator<CandidateSource.Candidate> stream = sources.get(source).candidates(userId, classes, excluded);
+            SourceHead head = SourceHead.next(source, stream);
+            nanos[source] += System.nanoTime() - start;
+            if (head != null) {
+                heads.add(head);
+            }
+        }
+
+        while (!heads.isEmpty() && recalled.size() < recallBudget) {
+            SourceHead head = heads.poll();
+            long candidateId = head.candidate.getUserId();
+            if (candidateId != userId && !excluded.test(candidateId) && recalled.add(candidateId)) {
+                yielded[head.source]++;
+            }
+            long start = System.nanoTime();
+            SourceHead next = SourceHead.next(head.source, head.stream);
+            nanos[head.source] += System.nanoTime() - start;
+            if (next != null) {
+                heads.add(next);
+            }
+        }
+
+        for (int source = 0; source < sourceCount; source++) {
+            matchingMetrics.recordSource(sources.get(source).getName(), nanos[source], yielded[source]);
+        }
+        return recalled;
+    }
+
+    /**
+     * Scores the recalled candidates against the requester and keeps the best
+     * {@code k}, best first. Excluded candidates are skipped before any scoring;
+     * candidates without indexed features are dropped.
+     */
+    public RankedCandidates rank(MatchFeatures requester, Collection<Long> candidateIds, int k,
+            LongPredicate excluded) {
+        long[] ids = new long[candidateIds.size()];
+        double[] scores = new double[candidateIds.size()];
+        int count = 0;
+
+        for (Long candidateId : candidateIds) {
+            if (excluded.test(candidateId)) {
+                continue;
+            }
+            MatchFeatures candidate = matchFeatureService.getFeatures(candidateId);
+            if (candidate == null) {
+                continue;
+            }
+            ids[count] = candidateId;
+            scores[count] = pairScoreCache.score(requester, candidate);
+            count++;
+        }
+
+        int[] top = selectTopK(scores, count, k);
+        long[] topIds = new long[top.length];
+        double[] topScores = new double[top.length];
+        for (int i = 0; i < top.length; i++) {
+            topIds[i] = ids[top[i]];
+            topScores[i] = scores[top[i]];
+        }
+        return new RankedCandidates(topIds, topScores);
+    }
+
+    /**
+     * Indices of the {@code k} highest scores among the first {@code count},
+     * best first. Uses a primitive min-heap so ranking thousands of candidates
+     * does not box every score.
+     */
+    static int[] selectTopK(double[] scores, int count, int k) {
+        int size = Math.min(k, count);
+        int[] heap = new int[size];
+        int filled = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (filled < size) {
+                heap[filled] = i;
+                int child = filled++;
+                while (child > 0) {
+                    int parent = (child - 1) >>> 1;
+                    if (scores[heap[parent]] <= scores[heap[child]]) {
+                        break;
+                    }
+                    int tmp = heap[parent];
+                    heap[parent] = heap[child];
+                    heap[child] = tmp;
+                    child = parent;
+                }
+            } else if (size > 0 && scores[i] > scores[heap[0]]) {
+                heap[0] = i;
+                siftDown(heap, scores, 0, size);
+            }
+        }
+
+        // Pop the min-heap from the back so the result ends up best first
+        int[] ordered = new int[filled];
+        for (int end = filled - 1; end >= 0; end--) {
+            ordered[end] = heap[0];
+            heap[0] = heap[end];
+            siftDown(heap, scores, 0, end);
+        }
+        return ordered;
+    }
+
+    private static void siftDown(int[] heap, double[] scores, int parent, int size) {
+        while (true) {
+            int smallest = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < size && scores[heap[left]] < scores[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && scores[heap[right]] < scores[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == parent) {
+                return;
+            }
+            int tmp = heap[parent];
+            heap[parent] = heap[smallest];
+            heap[smallest] = tmp;
+            parent = smallest;
+        }
+    }
+
+    private static final class SourceHead {
+        private final int source;
+        private final Iterator<CandidateSource.Candidate> stream;
+        private final CandidateSource.Candidate candidate;
+
+        private SourceHead(int source, Iterator<CandidateSource.Candidate> stream,
+                CandidateSource.Candidate candidate) {
+            this.source = source;
+            this.stream = stream;
+            this.candidate = candidate;
+        }
+
+        private static SourceHead next(int source, Iterator<CandidateSource.Candidate> stream) {
+            return stream.hasNext() ? new SourceHead(source, stream, stream.next()) : null;
+        }
+    }
+
+    /**
+     * Candidate ids and scores in rank order.
+     */
+    public static final class RankedCandidates {
+        private final long[] ids;
+        private final double[] scores;
+
+        public RankedCandidates(long[] ids, double[] scores) {
+            this.ids = ids;
+            this.scores = scores;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public long idAt(int rank) {
+            return ids[rank];
+        }
+
+        public double scoreAt(int rank) {
+            return scores[rank];
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.studysync.service;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * One way of recalling candidates for a requester's deck. Each source yields its
+ * candidates best first with a relevance in [0, 1]; {@link CandidateRanker}
+ * merges the sources by relevance, drops duplicates and stops at a fixed budget.
+ * Sources are read from in-memory indexes only and should produce candidates
+ * lazily or cap their own work, so one large source cannot slow down recall.
+ * Sources that do not look at classes scale their relevance to at most
+ * {@link #ATTRIBUTE_WEIGHT}, so a strong class overlap is recalled first.
+ *
+ * Every {@code CandidateSource} bean is picked up by the ranker; on equal
+ * relevance, sources earlier in {@link org.springframework.core.annotation.Order}
+ * win.
+ */
+public interface CandidateSource {
+
+    double ATTRIBUTE_WEIGHT = 0.5;
+
+    /**
+     * Short name used as the {@code source} tag on recall metrics.
+     */
+    String getName();
+
+    /**
+     * Candidates for the user, highest relevance first. May skip excluded users
+     * and the user themselves early; the ranker filters both regardless.
+     *
+     * @param classes the requester's current classes
+     */
+    Iterator<Candidate> candidates(Long userId, Collection<String> classes, LongPredicate excluded);
+
+    /**
+     * Lazily maps the items to candidates, skipping items mapped to null, and
+     * stops after {@code limit} candidates. Items are only read as candidates
+     * are taken, so a large index costs no more than what the ranker consumes.
+     */
+    static <T> Iterator<Candidate> lazily(Iterator<T> items, int limit, Function<T, Candidate> toCandidate) {
+        return new Iterator<>() {
+            private Candidate next;
+            private int yielded;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && yielded < limit && items.hasNext()) {
+                    next = toCandidate.apply(items.next());
+                }
+                return next != null;
+            }
+
+            @Override
+            public Candidate next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Candidate candidate = next;
+                next = null;
+                yielded++;
+                return candidate;
+            }
+        };
+    }
+
+    /**
+     * A recalled user and the source's relevance for them, in [0, 1].
+     */
+    final class Candidate {
+        private final long userId;
+        private final double relevance;
+
+        public Candidate(long userId, double relevance) {
+            this.userId = userId;
+            this.relevance = relevance;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public double getRelevance() {
+            return relevance;
+        }
+    }
+}
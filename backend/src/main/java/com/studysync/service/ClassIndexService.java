@@ -0,0 +1,188 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+import com.studysync.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index from class code to the ids of users with a completed
+ * profile enrolled in that class. Used for candidate generation so a deck only
+ * touches users who share at least one class with the requester.
+ */
+@Service
+public class ClassIndexService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassIndexService.class);
+
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+
+    private final Map<String, Set<Long>> usersByClass = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> classesByUser = new ConcurrentHashMap<>();
+
+    public ClassIndexService(UserRepository userRepository, ShardRouter shardRouter) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void rebuild() {
+        usersByClass.clear();
+        classesByUser.clear();
+
+        List<String> shardKeys = shardRouter.localShardKeys(userRepository.findShardKeys());
+        List<Object[]> rows = shardKeys.isEmpty() ? List.of() : userRepository.findCompletedUserClassCodes(shardKeys);
+        for (Object[] row : rows) {
+            Long userId = (Long) row[0];
+            String classCode = normalizeClassCode((String) row[1]);
+            if (classCode == null) {
+                continue;
+            }
+            classesByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(classCode);
+            usersByClass.computeIfAbsent(classCode, code -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+
+        LOGGER.info("Class index built: {} users across {} classes", classesByUser.size(), usersByClass.size());
+    }
+
+    /**
+     * Re-index a user after their classes or profile completion state changed.
+     * Users outside this node's shards are dropped.
+     *
+     * @return the classes the user was indexed under before this update
+     */
+    public synchronized Set<String> updateUser(User user) {
+        if (user == null || user.getId() == null) {
+            return Set.of();
+        }
+
+        Set<String> newClasses = new HashSet<>();
+        if (user.isProfileCompleted() && user.getClasses() != null && shardRouter.isLocal(user)) {
+            for (String classCode : user.getClasses()) {
+                String normalized = normalizeClassCode(classCode);
+                if (normalized != null) {
+                    newClasses.add(normalized);
+                }
+            }
+        }
+
+        Set<String> oldClasses = classesByUser.getOrDefault(user.getId(), Set.of());
+        for (String classCode : oldClasses) {
+            if (!newClasses.contains(classCode)) {
+                Set<Long> members = usersByClass.get(classCode);
+                if (members != null) {
+                    members.remove(user.getId());
+                    if (members.isEmpty()) {
+                        usersByClass.remove(classCode, members);
+                    }
+                }
+            }
+        }
+        for (String classCode : newClasses) {
+            usersByClass.computeIfAbsent(classCode, code -> ConcurrentHashMap.newKeySet()).add(user.getId());
+        }
+
+        if (newClasses.isEmpty()) {
+            classesByUser.remove(user.getId());
+        } else {
+            Set<String> stored = ConcurrentHashMap.newKeySet();
+            stored.addAll(newClasses);
+            classesByUser.put(user.getId(), stored);
+        }
+        return oldClasses;
+    }
+
+    /**
+     * Ids of indexed users sharing at least one of the given classes, excluding
+     * the requesting user.
+     */
+    public Set<Long> findUsersSharingClasses(Long userId, Collection<String> classes) {
+        Set<Long> result = new HashSet<>();
+        if (classes == null) {
+            return result;
+        }
+        for (String classCode : classes) {
+            String normalized = normalizeClassCode(classCode);
+            Set<Long> members = normalized != null ? usersByClass.get(normalized) : null;
+            if (members != null) {
+                result.addAll(members);
+            }
+        }
+        result.remove(userId);
+        return result;
+    }
+
+    /**
+     * Number of the given classes each indexed user shares with the requesting
+     * user, for users sharing at least one.
+     */
+    public Map<Long, Integer> countSharedClasses(Long userId, Collection<String> classes) {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (classes == null) {
+            return counts;
+        }
+        Set<String> normalizedClasses = new HashSet<>();
+        for (String classCode : classes) {
+            String normalized = normalizeClassCode(classCode);
+            if (normalized != null) {
+                normalizedClasses.add(normalized);
+            }
+        }
+        for (String classCode : normalizedClasses) {
+            Set<Long> members = usersByClass.get(classCode);
+            if (members != null) {
+                for (Long member : members) {
+                    counts.merge(member, 1, Integer::sum);
+                }
+            }
+        }
+        counts.remove(userId);
+        return counts;
+    }
+
+    /**
+     * Total enrollment of the given classes; an upper bound on the size of
+     * {@link #findUsersSharingClasses} that costs one lookup per class.
+     */
+    public int countClassMembers(Collection<String> classes) {
+        int count = 0;
+        if (classes != null) {
+            for (String classCode : classes) {
+                String normalized = normalizeClassCode(classCode);
+                Set<Long> members = normalized != null ? usersByClass.get(normalized) : null;
+                count += members != null ? members.size() : 0;
+            }
+        }
+        return count;
+    }
+
+    public Set<String> getIndexedClasses(Long userId) {
+        return classesByUser.getOrDefault(userId, Set.of());
+    }
+
+    /**
+     * The class code as every matching index stores it: trimmed, or null when
+     * blank.
+     */
+    static String normalizeClassCode(String classCode) {
+        if (classCode == null) {
+            return null;
+        }
+        String trimmed = classCode.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
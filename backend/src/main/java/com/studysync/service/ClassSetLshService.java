@@ -0,0 +1,192 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+import com.studysync.repository.UserRepository;
+import com.studysync.util.MinHashLsh;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+/**
+ * MinHash/LSH candidate source over each user's classes and preferred study
+ * locations. Finds users with a high Jaccard overlap of those sets by looking
+ * only at the user's LSH buckets, which keeps recall cheap for students in very
+ * large classes where the exact class index would return thousands of users.
+ */
+@Service
+public class ClassSetLshService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassSetLshService.class);
+
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final MinHashLsh lsh;
+    private final Timer queryDuration;
+
+    @Value("${matching.lsh.max-candidates:2000}")
+    private int maxCandidates;
+
+    public ClassSetLshService(UserRepository userRepository,
+            ShardRouter shardRouter,
+            @Value("${matching.lsh.bands:32}") int bands,
+            @Value("${matching.lsh.rows:2}") int rows,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.lsh = new MinHashLsh(bands, rows, 7L);
+
+        Gauge.builder("matching.lsh.index.size", lsh, MinHashLsh::size)
+                .description("Users in the class/location LSH index")
+                .register(meterRegistry);
+        this.queryDuration = Timer.builder("matching.lsh.query.duration")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void rebuild() {
+        Map<Long, List<String>> tokensByUser = new HashMap<>();
+        List<String> shardKeys = shardRouter.localShardKeys(userRepository.findShardKeys());
+        if (!shardKeys.isEmpty()) {
+            for (Object[] row : userRepository.findCompletedUserClassCodes(shardKeys)) {
+                addToken(tokensByUser, (Long) row[0], classToken((String) row[1]));
+            }
+            for (Object[] row : userRepository.findCompletedUserLocations(shardKeys)) {
+                addToken(tokensByUser, (Long) row[0], locationToken((String) row[1]));
+            }
+        }
+        tokensByUser.forEach((userId, tokens) -> lsh.put(userId, MinHashLsh.hashTokens(tokens)));
+        LOGGER.info("Class/location LSH index built for {} users", lsh.size());
+    }
+
+    public void updateUser(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        List<String> tokens = new ArrayList<>();
+        if (user.isProfileCompleted() && shardRouter.isLocal(user)) {
+            addTokens(tokens, user.getClasses(), true);
+            addTokens(tokens, user.getPreferredLocations(), false);
+        }
+        lsh.put(user.getId(), MinHashLsh.hashTokens(tokens));
+    }
+
+    /**
+     * Up to {@code k} users with the highest Jaccard overlap of classes and
+     * locations among those sharing an LSH bucket with the user, with their
+     * overlap, best first.
+     */
+    public Map<Long, Double> findSimilar(Long userId, int k, LongPredicate excluded) {
+        long start = System.nanoTime();
+        Map<Long, Double> similar = lsh.query(userId, k, maxCandidates, excluded);
+        queryDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return similar;
+    }
+
+    /**
+     * Compares LSH recall against an exact full scan for a random sample of
+     * indexed users: the share of the exact top {@code k} that LSH also returns
+     * (ties included), and the latency of both paths.
+     */
+    public Map<String, Object> benchmark(int samples, int k) {
+        List<String> shardKeys = shardRouter.localShardKeys(userRepository.findShardKeys());
+        List<Long> userIds = new ArrayList<>(shardKeys.isEmpty() ? List.of()
+                : userRepository.findRankableUserIdsAfter(0L, shardKeys));
+        Collections.shuffle(userIds, new Random(samples));
+        userIds = userIds.subList(0, Math.min(samples, userIds.size()));
+
+        long[] lshNanos = new long[userIds.size()];
+        long[] exactNanos = new long[userIds.size()];
+        long found = 0;
+        long expected = 0;
+        for (int i = 0; i < userIds.size(); i++) {
+            long userId = userIds.get(i);
+
+            long start = System.nanoTime();
+            Map<Long, Double> approximate = lsh.query(userId, k, maxCandidates, id -> false);
+            lshNanos[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Map<Long, Double> exact = lsh.exact(userId, k, id -> false);
+            exactNanos[i] = System.nanoTime() - start;
+
+            // Tie-aware: any approximate hit at least as similar as the exact k-th
+            // counts, since the exact top k picks arbitrarily among equal scores
+            double kth = exact.values().stream().mapToDouble(Double::doubleValue).min().orElse(0.0);
+            long hits = approximate.values().stream().filter(similarity -> similarity >= kth).count();
+            expected += exact.size();
+            found += Math.min(hits, exact.size());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("samples", userIds.size());
+        result.put("indexedUsers", lsh.size());
+        result.put("k", k);
+        result.put("recall", expected == 0 ? 1.0 : (double) found / expected);
+        result.put("lshMicrosP50", percentileMicros(lshNanos, 0.5));
+        result.put("lshMicrosP99", percentileMicros(lshNanos, 0.99));
+        result.put("exactMicrosP50", percentileMicros(exactNanos, 0.5));
+        result.put("exactMicrosP99", percentileMicros(exactNanos, 0.99));
+        return result;
+    }
+
+    private static double percentileMicros(long[] nanos, double percentile) {
+        if (nanos.length == 0) {
+            return 0.0;
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))] / 1000.0;
+    }
+
+    private static void addTokens(List<String> tokens, Collection<String> values, boolean classes) {
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            String token = classes ? classToken(value) : locationToken(value);
+            if (token != null) {
+                tokens.add(token);
+            }
+        }
+    }
+
+    private static void addToken(Map<Long, List<String>> tokensByUser, Long userId, String token) {
+        if (token != null) {
+            tokensByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(token);
+        }
+    }
+
+    // Same normalization as the class index, so both agree on what a class is
+    private static String classToken(String classCode) {
+        String normalized = ClassIndexService.normalizeClassCode(classCode);
+        return normalized != null ? "class:" + normalized : null;
+    }
+
+    private static String locationToken(String location) {
+        if (location == null || location.isBlank()) {
+            return null;
+        }
+        return "location:" + location.trim().toLowerCase();
+    }
+}
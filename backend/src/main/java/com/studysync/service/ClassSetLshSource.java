@@ -0,0 +1,39 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.LongPredicate;
+
+/**
+ * Users with the most similar classes and study locations from the MinHash/LSH
+ * index, by Jaccard overlap.
+ */
+@Component
+@Order(20)
+public class ClassSetLshSource implements CandidateSource {
+
+    private final ClassSetLshService classSetLshService;
+
+    @Value("${matching.lsh.recall-size:100}")
+    private int limit;
+
+    public ClassSetLshSource(ClassSetLshService classSetLshService) {
+        this.classSetLshService = classSetLshService;
+    }
+
+    @Override
+    public String getName() {
+        return "lsh";
+    }
+
+    @Override
+    public Iterator<Candidate> candidates(Long userId, Collection<String> classes, LongPredicate excluded) {
+        return classSetLshService.findSimilar(userId, limit, excluded).entrySet().stream()
+                .map(entry -> new Candidate(entry.getKey(), entry.getValue()))
+                .iterator();
+    }
+}
@@ -0,0 +1,76 @@
+package com.studysync.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.studysync.dto.MatchCandidateDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of each user's ranked deck, so dashboard reloads do not re-run
+ * the match pipeline. Bounded by size and expired after a fixed time; entries are
+ * also dropped when the user swipes, when their profile changes, or when a
+ * profile in one of their classes changes.
+ *
+ * Concurrent loads for the same user share one computation. A deck that is
+ * invalidated while it is still being built is returned to its caller but not
+ * cached.
+ */
+@Service
+public class DeckCacheService {
+
+    private final AsyncCache<Long, List<MatchCandidateDto>> decks;
+
+    public DeckCacheService(@Value("${matching.deck.cache.max-size:10000}") long maxSize,
+            @Value("${matching.deck.cache.ttl-seconds:60}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.decks = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        // Exposes cache.gets{result=hit|miss}, cache.evictions and cache.size
+        CaffeineCacheMetrics.monitor(meterRegistry, decks, "matching.deck");
+    }
+
+    public List<MatchCandidateDto> get(Long userId, Supplier<List<MatchCandidateDto>> loader) {
+        CompletableFuture<List<MatchCandidateDto>> cached = decks.getIfPresent(userId);
+        if (cached != null) {
+            return cached.join();
+        }
+
+        CompletableFuture<List<MatchCandidateDto>> pending = new CompletableFuture<>();
+        CompletableFuture<List<MatchCandidateDto>> raced = decks.asMap().putIfAbsent(userId, pending);
+        if (raced != null) {
+            return raced.join();
+        }
+
+        // Built on the calling thread; a failed future is dropped from the cache
+        try {
+            List<MatchCandidateDto> deck = List.copyOf(loader.get());
+            pending.complete(deck);
+            return deck;
+        } catch (RuntimeException ex) {
+            pending.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            decks.synchronous().invalidate(userId);
+        }
+    }
+
+    public void invalidateAll(Collection<Long> userIds) {
+        decks.synchronous().invalidateAll(userIds);
+    }
+}
@@ -0,0 +1,134 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Ranked deck snapshots that back cursor pagination. A snapshot is created for
+ * the first page and later pages read from it, so paging never re-runs the
+ * ranking pipeline. Snapshots expire after a TTL and the least recently used
+ * ones are evicted once the store is full.
+ */
+@Service
+public class DeckSnapshotService {
+
+    private final long ttlMillis;
+    private final Map<String, DeckSnapshot> snapshots;
+
+    public DeckSnapshotService(@Value("${matching.deck.snapshot.ttl-seconds:600}") long ttlSeconds,
+            @Value("${matching.deck.snapshot.max-entries:5000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.snapshots = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DeckSnapshot> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public DeckSnapshot create(Long userId, CandidateRanker.RankedCandidates ranked) {
+        DeckSnapshot snapshot = new DeckSnapshot(UUID.randomUUID().toString(), userId, ranked,
+                System.currentTimeMillis());
+        snapshots.put(snapshot.getId(), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * The snapshot, or null if it never existed, expired or was evicted.
+     */
+    public DeckSnapshot get(String snapshotId) {
+        DeckSnapshot snapshot = snapshots.get(snapshotId);
+        if (snapshot != null && isExpired(snapshot, System.currentTimeMillis())) {
+            snapshots.remove(snapshotId);
+            return null;
+        }
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${matching.deck.snapshot.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (snapshots) {
+            snapshots.values().removeIf(snapshot -> isExpired(snapshot, now));
+        }
+    }
+
+    public String encodeCursor(DeckSnapshot snapshot, int offset) {
+        String raw = snapshot.getId() + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor, or returns null if it is malformed.
+     */
+    public DeckCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            int offset = parts.length == 2 ? Integer.parseInt(parts[1]) : -1;
+            return offset >= 0 ? new DeckCursor(parts[0], offset) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean isExpired(DeckSnapshot snapshot, long now) {
+        return now - snapshot.getCreatedAtMillis() > ttlMillis;
+    }
+
+    public static final class DeckSnapshot {
+        private final String id;
+        private final Long userId;
+        private final CandidateRanker.RankedCandidates ranked;
+        private final long createdAtMillis;
+
+        private DeckSnapshot(String id, Long userId, CandidateRanker.RankedCandidates ranked, long createdAtMillis) {
+            this.id = id;
+            this.userId = userId;
+            this.ranked = ranked;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public CandidateRanker.RankedCandidates getRanked() {
+            return ranked;
+        }
+
+        public long getCreatedAtMillis() {
+            return createdAtMillis;
+        }
+    }
+
+    public static final class DeckCursor {
+        private final String snapshotId;
+        private final int offset;
+
+        private DeckCursor(String snapshotId, int offset) {
+            this.snapshotId = snapshotId;
+            this.offset = offset;
+        }
+
+        public String getSnapshotId() {
+            return snapshotId;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.studysync.service;
+
+import com.studysync.model.FeedPrecomputeCheckpoint;
+import com.studysync.repository.FeedPrecomputeCheckpointRepository;
+import com.studysync.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Nightly rebuild of every active user's candidate feed. Users are walked in id
+ * order in chunks; each chunk is ranked with a parallel stream on a dedicated
+ * fork/join pool and written with JDBC batches, together with the checkpoint, in
+ * one transaction. A run that is interrupted (crash, redeploy) is resumed from the
+ * checkpoint on the next start.
+ *
+ * Between runs the feeds are kept current by the dirty-queue worker in
+ * {@link CandidateFeedService}, so only users who completed their profile since
+ * the last write are ranked online.
+ */
+@Service
+public class FeedPrecomputeService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeedPrecomputeService.class);
+    private static final String JOB_NAME = "candidate-feed";
+
+    private final UserRepository userRepository;
+    private final FeedPrecomputeCheckpointRepository checkpointRepository;
+    private final CandidateFeedService candidateFeedService;
+    private final SeenFilterService seenFilterService;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final ShardRouter shardRouter;
+    // One checkpoint per shard node, since each node only precomputes its own users
+    private final String jobName;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile double lastThroughput;
+    private final Counter processedUsers;
+    private final Timer runDuration;
+
+    @Value("${matching.feed.precompute.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${matching.feed.precompute.parallelism:0}")
+    private int parallelism;
+
+    public FeedPrecomputeService(UserRepository userRepository,
+            FeedPrecomputeCheckpointRepository checkpointRepository,
+            CandidateFeedService candidateFeedService,
+            SeenFilterService seenFilterService,
+            @Qualifier("matchingTaskScheduler") ThreadPoolTaskScheduler taskScheduler,
+            ShardRouter shardRouter,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.candidateFeedService = candidateFeedService;
+        this.seenFilterService = seenFilterService;
+        this.taskScheduler = taskScheduler;
+        this.shardRouter = shardRouter;
+        this.jobName = shardRouter.isSharded() ? JOB_NAME + "-node-" + shardRouter.getNodeId() : JOB_NAME;
+
+        Gauge.builder("matching.feed.precompute.throughput", this, service -> service.lastThroughput)
+                .description("Users per second of the last feed precompute run")
+                .baseUnit("users/s")
+                .register(meterRegistry);
+        this.processedUsers = Counter.builder("matching.feed.precompute.users")
+                .description("Candidate feeds written by the nightly precompute")
+                .register(meterRegistry);
+        this.runDuration = Timer.builder("matching.feed.precompute.run.duration")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Picks up a run that did not finish, once the feature vectors are loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(30)
+    public void resumeInterruptedRun() {
+        checkpointRepository.findById(jobName)
+                .filter(FeedPrecomputeCheckpoint::isRunning)
+                .ifPresent(checkpoint -> {
+                    LOGGER.info("Resuming feed precompute after user {}", checkpoint.getLastUserId());
+                    taskScheduler.execute(this::precomputeFeeds);
+                });
+    }
+
+    @Scheduled(cron = "${matching.feed.precompute.cron:0 0 2 * * *}")
+    public void precomputeFeeds() {
+        if (!running.compareAndSet(false, true)) {
+            LOGGER.info("Feed precompute already running, skipping");
+            return;
+        }
+        long start = System.nanoTime();
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long written = 0;
+        try {
+            FeedPrecomputeCheckpoint checkpoint = checkpointRepository.findById(jobName)
+                    .orElseGet(() -> new FeedPrecomputeCheckpoint(jobName));
+            if (!checkpoint.isRunning()) {
+                checkpoint.start();
+                checkpoint = checkpointRepository.save(checkpoint);
+            }
+
+            List<String> shardKeys = shardRouter.localShardKeys(userRepository.findShardKeys());
+            List<Long> userIds = shardKeys.isEmpty() ? List.of()
+                    : userRepository.findRankableUserIdsAfter(checkpoint.getLastUserId(), shardKeys);
+            for (int from = 0; from < userIds.size(); from += chunkSize) {
+                List<Long> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+                Map<Long, LongPredicate> seen = seenFilterService.seenByAll(chunk);
+
+                // A parallel stream started inside the pool runs on the pool's workers
+                Map<Long, CandidateRanker.RankedCandidates> feeds = pool.submit(() -> chunk.parallelStream()
+                        .collect(Collectors.toMap(Function.identity(),
+                                userId -> candidateFeedService.computeFeed(userId, seen.get(userId)))))
+                        .get();
+
+                checkpoint.advance(chunk.get(chunk.size() - 1), chunk.size());
+                FeedPrecomputeCheckpoint progress = checkpoint;
+                candidateFeedService.writeFeeds(feeds, () -> checkpointRepository.save(progress));
+
+                written += chunk.size();
+                processedUsers.increment(chunk.size());
+            }
+
+            checkpoint.complete();
+            checkpointRepository.save(checkpoint);
+
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            lastThroughput = written / seconds;
+            LOGGER.info("Precomputed {} candidate feeds in {} ms ({} users/sec)", written,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), Math.round(lastThroughput));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Feed precompute interrupted after {} users, will resume from checkpoint", written);
+        } catch (ExecutionException ex) {
+            LOGGER.error("Feed precompute failed after {} users: {}", written, ex.getCause().getMessage(),
+                    ex.getCause());
+        } catch (Exception ex) {
+            LOGGER.error("Feed precompute failed after {} users: {}", written, ex.getMessage(), ex);
+        } finally {
+            pool.shutdown();
+            runDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+    }
+}
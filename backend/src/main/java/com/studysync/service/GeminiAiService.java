@@ -4,20 +4,40 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.studysync.model.AiMatchSuggestion;
 import com.studysync.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class GeminiAiService {
 
+    private static final String RECOMMENDATIONS_FALLBACK =
+            "Unable to generate personalized recommendations at this time. Please try again later.";
+
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final PairScoreCache pairScoreCache;
+    private final AiSuggestionCache aiSuggestionCache;
+    private final GeminiCallGuard geminiCallGuard;
+    private final Counter coalescedCalls;
+
+    // Gemini calls in flight by prompt hash; callers with the same prompt share one request
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
 
     @Value("${gemini.api.key:}")
     private String geminiApiKey;
@@ -25,20 +45,77 @@ public class GeminiAiService {
     @Value("${gemini.api.url:https://generativelanguage.googleapis.com/v1beta/models/gemini-pro:generateContent}")
     private String geminiApiUrl;
 
-    public GeminiAiService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
+    @Value("${gemini.api.timeout-ms:10000}")
+    private long geminiTimeoutMs;
+
+    @Value("${matching.ai.batch-size:8}")
+    private int batchSize;
+
+    public GeminiAiService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+            PairScoreCache pairScoreCache, AiSuggestionCache aiSuggestionCache, GeminiCallGuard geminiCallGuard,
+            MeterRegistry meterRegistry) {
         this.webClient = webClientBuilder.build();
         this.objectMapper = objectMapper;
+        this.pairScoreCache = pairScoreCache;
+        this.aiSuggestionCache = aiSuggestionCache;
+        this.geminiCallGuard = geminiCallGuard;
+        this.coalescedCalls = Counter.builder("matching.ai.gemini.coalesced")
+                .description("Gemini calls that joined an identical request already in flight")
+                .register(meterRegistry);
     }
 
     /**
-     * Generate AI-powered match suggestions using Gemini AI
+     * Generate AI-powered match suggestions using Gemini AI. Served from
+     * {@link AiSuggestionCache} while neither profile has changed; only parsed
+     * Gemini answers are cached, never the fallback.
      */
     public Mono<AiMatchSuggestion> generateMatchSuggestion(User currentUser, User potentialMatch) {
-        String prompt = buildMatchingPrompt(currentUser, potentialMatch);
+        String profileHash = AiSuggestionCache.profileHash(currentUser, potentialMatch);
+
+        return aiSuggestionCache.find(currentUser, potentialMatch, profileHash)
+                .switchIfEmpty(Mono.defer(() -> callGeminiApi(buildMatchingPrompt(currentUser, potentialMatch))
+                        .flatMap(response -> Mono.justOrEmpty(parseMatchResponse(response, currentUser,
+                                potentialMatch)))
+                        .flatMap(suggestion -> aiSuggestionCache.store(suggestion, profileHash))))
+                .switchIfEmpty(Mono.fromSupplier(() -> createFallbackSuggestion(currentUser, potentialMatch)))
+                .onErrorResume(ex -> Mono.fromSupplier(() -> createFallbackSuggestion(currentUser, potentialMatch)));
+    }
 
-        return callGeminiApi(prompt)
-                .map(response -> parseMatchResponse(response, currentUser, potentialMatch))
-                .onErrorReturn(createFallbackSuggestion(currentUser, potentialMatch));
+    /**
+     * Suggestions for several candidates at once, emitted as they become
+     * available. Cached pairs are served from {@link AiSuggestionCache}; the rest
+     * are scored {@code matching.ai.batch-size} candidates per Gemini request, at
+     * most {@code maxConcurrency} requests in flight. A candidate missing from the
+     * answer, or whose entry cannot be parsed, gets the fallback suggestion, as
+     * does every candidate of a failed request.
+     */
+    public Flux<AiMatchSuggestion> generateMatchSuggestions(User currentUser, List<User> candidates,
+            int maxConcurrency) {
+        return Flux.fromIterable(candidates)
+                .flatMap(candidate -> {
+                    String profileHash = AiSuggestionCache.profileHash(currentUser, candidate);
+                    return aiSuggestionCache.find(currentUser, candidate, profileHash)
+                            .map(cached -> new BatchItem(candidate, profileHash, cached))
+                            .defaultIfEmpty(new BatchItem(candidate, profileHash, null));
+                })
+                .publish(items -> Flux.merge(
+                        items.filter(item -> item.cached != null).map(item -> item.cached),
+                        items.filter(item -> item.cached == null)
+                                .buffer(Math.max(1, batchSize))
+                                .flatMap(batch -> scoreBatch(currentUser, batch), Math.max(1, maxConcurrency))));
+    }
+
+    private Flux<AiMatchSuggestion> scoreBatch(User currentUser, List<BatchItem> batch) {
+        return callGeminiApi(buildBatchMatchingPrompt(currentUser, batch))
+                .map(response -> parseBatchResponse(response, currentUser, batch))
+                .onErrorResume(ex -> Mono.just(Map.of()))
+                .flatMapMany(parsed -> Flux.fromIterable(batch)
+                        .flatMap(item -> {
+                            AiMatchSuggestion suggestion = parsed.get(item.candidate.getId());
+                            return suggestion != null
+                                    ? aiSuggestionCache.store(suggestion, item.profileHash)
+                                    : Mono.fromSupplier(() -> createFallbackSuggestion(currentUser, item.candidate));
+                        }));
     }
 
     /**
@@ -49,7 +126,39 @@ public class GeminiAiService {
 
         return callGeminiApi(prompt)
                 .map(this::extractTextFromResponse)
-                .onErrorReturn("Unable to generate personalized recommendations at this time. Please try again later.");
+                .onErrorReturn(RECOMMENDATIONS_FALLBACK);
+    }
+
+    /**
+     * Study recommendations streamed from streamGenerateContent, one text chunk per
+     * element as Gemini produces it. Chunks are only read from Gemini as fast as the
+     * subscriber requests them. Fails over to the fallback message if nothing has
+     * been streamed yet; a stream that breaks off later just ends. Not coalesced
+     * with identical requests, each caller reads its own stream.
+     */
+    public Flux<String> streamStudyRecommendations(User user, List<String> availableTimeSlots) {
+        if (geminiApiKey == null || geminiApiKey.isEmpty()) {
+            return Flux.just(RECOMMENDATIONS_FALLBACK);
+        }
+        String prompt = buildStudyRecommendationPrompt(user, availableTimeSlots);
+        AtomicBoolean streamed = new AtomicBoolean();
+
+        Flux<ServerSentEvent<String>> chunks = webClient.post()
+                .uri(geminiApiUrl.replace(":generateContent", ":streamGenerateContent") + "?alt=sse&key="
+                        + geminiApiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(buildRequestBody(prompt))
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                // Per chunk: a stream stalled this long is treated as failed
+                .timeout(Duration.ofMillis(geminiTimeoutMs));
+
+        return geminiCallGuard.protect(chunks)
+                .mapNotNull(event -> extractChunkText(event.data()))
+                .doOnNext(text -> streamed.set(true))
+                .onErrorResume(ex -> streamed.get() ? Flux.empty() : Flux.just(RECOMMENDATIONS_FALLBACK));
     }
 
     /**
@@ -63,22 +172,54 @@ public class GeminiAiService {
                 .onErrorReturn(0.5); // Default neutral score
     }
 
+    /**
+     * Single-flight: concurrent calls with the same prompt share one HTTP request
+     * and its response. The entry is dropped once the request finishes, so a
+     * later call asks Gemini again; a caller that cancels does not cancel the
+     * request for the others. Requests go through {@link GeminiCallGuard} and fail
+     * fast while it rejects them.
+     */
     private Mono<String> callGeminiApi(String prompt) {
         if (geminiApiKey == null || geminiApiKey.isEmpty()) {
             return Mono.error(new RuntimeException("Gemini API key not configured"));
         }
 
-        Map<String, Object> requestBody = new HashMap<>();
-        Map<String, Object> content = new HashMap<>();
-        content.put("parts", List.of(Map.of("text", prompt)));
-        requestBody.put("contents", List.of(content));
+        return Mono.defer(() -> {
+            String promptHash = AiSuggestionCache.sha256Hex(prompt);
+            AtomicReference<Mono<String>> created = new AtomicReference<>();
+            Mono<String> call = inFlight.computeIfAbsent(promptHash, key -> {
+                AtomicReference<Mono<String>> shared = new AtomicReference<>();
+                shared.set(geminiCallGuard.protect(requestGemini(prompt))
+                        .doFinally(signal -> inFlight.remove(key, shared.get()))
+                        .cache());
+                created.set(shared.get());
+                return shared.get();
+            });
+            if (created.get() == null) {
+                coalescedCalls.increment();
+            }
+            return call;
+        });
+    }
+
+    private Mono<String> requestGemini(String prompt) {
+        Map<String, Object> requestBody = buildRequestBody(prompt);
 
         return webClient.post()
                 .uri(geminiApiUrl + "?key=" + geminiApiKey)
                 .header("Content-Type", "application/json")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(String.class);
+                .bodyToMono(String.class)
+                .timeout(Duration.ofMillis(geminiTimeoutMs));
+    }
+
+    private static Map<String, Object> buildRequestBody(String prompt) {
+        Map<String, Object> requestBody = new HashMap<>();
+        Map<String, Object> content = new HashMap<>();
+        content.put("parts", List.of(Map.of("text", prompt)));
+        requestBody.put("contents", List.of(content));
+        return requestBody;
     }
 
     private String buildMatchingPrompt(User currentUser, User potentialMatch) {
@@ -117,6 +258,51 @@ public class GeminiAiService {
                 potentialMatch.getAvailability());
     }
 
+    private String buildBatchMatchingPrompt(User currentUser, List<BatchItem> batch) {
+        StringBuilder prompt = new StringBuilder(String.format(
+                "Analyze the compatibility between a student and each of several candidate study partners.\n\n" +
+                        "Student:\n" +
+                        "- Name: %s\n" +
+                        "- Major: %s\n" +
+                        "- Year: %s\n" +
+                        "- Classes: %s\n" +
+                        "- Study Style: %s\n" +
+                        "- Goals: %s\n" +
+                        "- Availability: %s\n\n" +
+                        "Candidates:\n",
+                currentUser.getName(), currentUser.getMajor(), currentUser.getStudyYear(),
+                currentUser.getClasses(), currentUser.getStudyStyle(), currentUser.getGoals(),
+                currentUser.getAvailability()));
+        for (BatchItem item : batch) {
+            User candidate = item.candidate;
+            prompt.append(String.format(
+                    "Candidate %d:\n" +
+                            "- Name: %s\n" +
+                            "- Major: %s\n" +
+                            "- Year: %s\n" +
+                            "- Classes: %s\n" +
+                            "- Study Style: %s\n" +
+                            "- Goals: %s\n" +
+                            "- Availability: %s\n\n",
+                    candidate.getId(), candidate.getName(), candidate.getMajor(), candidate.getStudyYear(),
+                    candidate.getClasses(), candidate.getStudyStyle(), candidate.getGoals(),
+                    candidate.getAvailability()));
+        }
+        prompt.append("For every candidate, provide a compatibility score (0.0 to 1.0) and a brief explanation " +
+                "of why they would be good study partners for the student. Focus on shared classes, " +
+                "complementary study styles, and schedule compatibility.\n\n" +
+                "Format your response as a JSON array with one object per candidate:\n" +
+                "[\n" +
+                "  {\n" +
+                "    \"candidateId\": <candidate number>,\n" +
+                "    \"compatibilityScore\": 0.0-1.0,\n" +
+                "    \"reasoning\": \"explanation\",\n" +
+                "    \"sharedInterests\": [\"shared classes or interests\"]\n" +
+                "  }\n" +
+                "]");
+        return prompt.toString();
+    }
+
     private String buildStudyRecommendationPrompt(User user, List<String> availableTimeSlots) {
         return String.format(
                 "Generate personalized study recommendations for a student.\n\n" +
@@ -148,6 +334,9 @@ public class GeminiAiService {
                 user2.getMajor(), user2.getStudyYear(), user2.getStudyStyle(), user2.getGoals(), user2.getClasses());
     }
 
+    /**
+     * The suggestion in a Gemini response, or null when it cannot be parsed.
+     */
     private AiMatchSuggestion parseMatchResponse(String response, User currentUser, User potentialMatch) {
         try {
             JsonNode jsonResponse = objectMapper.readTree(response);
@@ -170,11 +359,59 @@ public class GeminiAiService {
                 return suggestion;
             }
         } catch (Exception e) {
-            // Log error and return fallback
             System.err.println("Error parsing AI response: " + e.getMessage());
         }
 
-        return createFallbackSuggestion(currentUser, potentialMatch);
+        return null;
+    }
+
+    /**
+     * The suggestions in a batch response by candidate id. Entries that cannot be
+     * parsed, or name a candidate outside the batch, are left out.
+     */
+    private Map<Long, AiMatchSuggestion> parseBatchResponse(String response, User currentUser,
+            List<BatchItem> batch) {
+        Map<Long, User> candidatesById = new HashMap<>();
+        for (BatchItem item : batch) {
+            candidatesById.put(item.candidate.getId(), item.candidate);
+        }
+
+        Map<Long, AiMatchSuggestion> suggestions = new HashMap<>();
+        try {
+            JsonNode jsonResponse = objectMapper.readTree(response);
+            JsonNode candidates = jsonResponse.get("candidates");
+            if (candidates == null || !candidates.isArray() || candidates.size() == 0) {
+                return suggestions;
+            }
+            String content = candidates.get(0).get("content").get("parts").get(0).get("text").asText();
+            // The array may come wrapped in a markdown code block
+            int start = content.indexOf('[');
+            int end = content.lastIndexOf(']');
+            if (start < 0 || end < start) {
+                return suggestions;
+            }
+
+            for (JsonNode matchData : objectMapper.readTree(content.substring(start, end + 1))) {
+                try {
+                    User candidate = candidatesById.get(matchData.get("candidateId").asLong());
+                    JsonNode score = matchData.get("compatibilityScore");
+                    if (candidate == null || score == null || !score.isNumber()) {
+                        continue;
+                    }
+                    AiMatchSuggestion suggestion = new AiMatchSuggestion(currentUser, candidate, score.asDouble(),
+                            matchData.get("reasoning").asText());
+                    if (matchData.has("sharedInterests")) {
+                        suggestion.setSharedInterests(matchData.get("sharedInterests").toString());
+                    }
+                    suggestions.put(candidate.getId(), suggestion);
+                } catch (Exception e) {
+                    System.err.println("Error parsing AI batch entry: " + e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error parsing AI batch response: " + e.getMessage());
+        }
+        return suggestions;
     }
 
     private String extractTextFromResponse(String response) {
@@ -192,6 +429,26 @@ public class GeminiAiService {
         return "Unable to generate recommendations at this time.";
     }
 
+    /**
+     * Text of one streamGenerateContent chunk, or null when it carries none.
+     */
+    private String extractChunkText(String chunk) {
+        if (chunk == null || chunk.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode parts = objectMapper.readTree(chunk).path("candidates").path(0).path("content").path("parts");
+            StringBuilder text = new StringBuilder();
+            for (JsonNode part : parts) {
+                text.append(part.path("text").asText(""));
+            }
+            return text.length() > 0 ? text.toString() : null;
+        } catch (Exception e) {
+            System.err.println("Error parsing AI stream chunk: " + e.getMessage());
+            return null;
+        }
+    }
+
     private Double parseCompatibilityScore(String response) {
         try {
             String text = extractTextFromResponse(response);
@@ -214,8 +471,8 @@ public class GeminiAiService {
     }
 
     private AiMatchSuggestion createFallbackSuggestion(User currentUser, User potentialMatch) {
-        // Calculate basic compatibility based on shared classes
-        double score = calculateBasicCompatibility(currentUser, potentialMatch);
+        // Same deterministic score the deck uses, shared through the pair cache
+        double score = pairScoreCache.score(currentUser, potentialMatch);
 
         AiMatchSuggestion suggestion = new AiMatchSuggestion(currentUser, potentialMatch, score,
                 "Basic compatibility calculated based on shared interests and study preferences.");
@@ -223,31 +480,15 @@ public class GeminiAiService {
         return suggestion;
     }
 
-    private double calculateBasicCompatibility(User user1, User user2) {
-        double score = 0.0;
-
-        // Check for shared classes
-        long sharedClasses = user1.getClasses().stream()
-                .filter(cls -> user2.getClasses().contains(cls))
-                .count();
-
-        if (sharedClasses > 0) {
-            score += 0.4 * Math.min(1.0, sharedClasses / 3.0); // Up to 40% for shared classes
-        }
-
-        // Check for compatible study styles
-        if (user1.getStudyStyle() == user2.getStudyStyle()) {
-            score += 0.3;
-        }
+    private static final class BatchItem {
+        private final User candidate;
+        private final String profileHash;
+        private final AiMatchSuggestion cached;
 
-        // Check for similar goals
-        if (user1.getGoals() == user2.getGoals()) {
-            score += 0.2;
+        private BatchItem(User candidate, String profileHash, AiMatchSuggestion cached) {
+            this.candidate = candidate;
+            this.profileHash = profileHash;
+            this.cached = cached;
         }
-
-        // Base score for any potential match
-        score += 0.1;
-
-        return Math.min(1.0, score);
     }
 }
\ No newline at end of file
@@ -0,0 +1,327 @@
+package com.studysync.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Protects the Gemini API and our callers from each other. Every request passes,
+ * in order:
+ * <ul>
+ * <li>a circuit breaker, open after too many recent calls failed or were slow,
+ * that rejects calls until {@code open-ms} has passed and then lets a few trial
+ * calls decide whether to close again,</li>
+ * <li>a token bucket refilled at {@code rate-per-second} up to {@code burst},</li>
+ * <li>a bulkhead of {@code max-concurrent} calls in flight.</li>
+ * </ul>
+ * A rejected call fails immediately, so callers go straight to their fallback
+ * instead of waiting out the deck deadline. State is published as
+ * {@code matching.ai.gemini.*} metrics.
+ */
+@Service
+public class GeminiCallGuard {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeminiCallGuard.class);
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    private final CircuitBreaker circuitBreaker;
+    private final TokenBucket tokenBucket;
+    private final Semaphore bulkhead;
+    private final long slowCallMs;
+
+    private final Counter rejectedOpen;
+    private final Counter rejectedRateLimited;
+    private final Counter rejectedBulkheadFull;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter slow;
+
+    public GeminiCallGuard(@Value("${matching.ai.guard.rate-per-second:10}") double ratePerSecond,
+            @Value("${matching.ai.guard.burst:20}") int burst,
+            @Value("${matching.ai.guard.max-concurrent:8}") int maxConcurrent,
+            @Value("${matching.ai.guard.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${matching.ai.guard.window-size:20}") int windowSize,
+            @Value("${matching.ai.guard.minimum-calls:10}") int minimumCalls,
+            @Value("${matching.ai.guard.open-ms:30000}") long openMs,
+            @Value("${matching.ai.guard.half-open-calls:3}") int halfOpenCalls,
+            @Value("${matching.ai.guard.slow-call-ms:4000}") long slowCallMs,
+            MeterRegistry meterRegistry) {
+        this.circuitBreaker = new CircuitBreaker(failureRateThreshold, windowSize, minimumCalls, openMs,
+                halfOpenCalls);
+        this.tokenBucket = new TokenBucket(ratePerSecond, burst);
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+        this.slowCallMs = slowCallMs;
+
+        Gauge.builder("matching.ai.gemini.breaker.state", circuitBreaker, CircuitBreaker::getState)
+                .description("Gemini circuit breaker: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("matching.ai.gemini.breaker.failure-rate", circuitBreaker, CircuitBreaker::getFailureRate)
+                .description("Share of failed or slow calls in the breaker's window")
+                .register(meterRegistry);
+        Gauge.builder("matching.ai.gemini.rate-limiter.tokens", tokenBucket, TokenBucket::getAvailable)
+                .description("Gemini calls that can start now without being rate limited")
+                .register(meterRegistry);
+        Gauge.builder("matching.ai.gemini.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free Gemini call slots")
+                .register(meterRegistry);
+
+        this.rejectedOpen = rejectedCounter(meterRegistry, "circuit-open");
+        this.rejectedRateLimited = rejectedCounter(meterRegistry, "rate-limited");
+        this.rejectedBulkheadFull = rejectedCounter(meterRegistry, "bulkhead-full");
+        this.succeeded = callsCounter(meterRegistry, "success");
+        this.failed = callsCounter(meterRegistry, "failure");
+        this.slow = callsCounter(meterRegistry, "slow");
+    }
+
+    /**
+     * The call, run only if the breaker, the rate limiter and the bulkhead all let
+     * it through; otherwise an error right away. Subscribing again re-checks.
+     */
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            String rejection = admit();
+            if (rejection != null) {
+                return Mono.error(new RuntimeException(rejection));
+            }
+
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(result -> recordCompleted(System.nanoTime() - start))
+                    .doOnError(ex -> recordFailed())
+                    .doOnCancel(circuitBreaker::release)
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    /**
+     * Streaming variant: the stream holds its bulkhead slot until it ends, and
+     * counts as slow when the first element takes longer than {@code slow-call-ms}.
+     */
+    public <T> Flux<T> protect(Flux<T> call) {
+        return Flux.defer(() -> {
+            String rejection = admit();
+            if (rejection != null) {
+                return Flux.error(new RuntimeException(rejection));
+            }
+
+            long start = System.nanoTime();
+            AtomicLong firstElementNanos = new AtomicLong(-1L);
+            return call
+                    .doOnNext(element -> firstElementNanos.compareAndSet(-1L, System.nanoTime() - start))
+                    .doOnComplete(() -> {
+                        long firstNanos = firstElementNanos.get();
+                        recordCompleted(firstNanos >= 0 ? firstNanos : System.nanoTime() - start);
+                    })
+                    .doOnError(ex -> recordFailed())
+                    .doOnCancel(circuitBreaker::release)
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    // Takes a breaker permission, a token and a bulkhead slot, or returns why not
+    private String admit() {
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedOpen.increment();
+            return "Gemini circuit breaker is open";
+        }
+        if (!tokenBucket.tryAcquire()) {
+            circuitBreaker.release();
+            rejectedRateLimited.increment();
+            return "Gemini rate limit reached";
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.release();
+            rejectedBulkheadFull.increment();
+            return "Too many Gemini calls in flight";
+        }
+        return null;
+    }
+
+    private void recordCompleted(long elapsedNanos) {
+        boolean tooSlow = elapsedNanos / 1_000_000L >= slowCallMs;
+        (tooSlow ? slow : succeeded).increment();
+        record(!tooSlow);
+    }
+
+    private void recordFailed() {
+        failed.increment();
+        record(false);
+    }
+
+    private void record(boolean success) {
+        int before = circuitBreaker.getState();
+        circuitBreaker.record(success);
+        int after = circuitBreaker.getState();
+        if (before != after) {
+            LOGGER.warn("Gemini circuit breaker {} -> {}", stateName(before), stateName(after));
+        }
+    }
+
+    private static String stateName(int state) {
+        return state == OPEN ? "open" : state == HALF_OPEN ? "half-open" : "closed";
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("matching.ai.gemini.rejected")
+                .description("Gemini calls failed fast without reaching the API")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static Counter callsCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("matching.ai.gemini.calls")
+                .description("Gemini calls that reached the API, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count-based breaker over the outcomes of the last {@code windowSize} calls.
+     */
+    private static final class CircuitBreaker {
+        private final double failureRateThreshold;
+        private final boolean[] window;
+        private final int minimumCalls;
+        private final long openMs;
+        private final int halfOpenCalls;
+
+        private int state = CLOSED;
+        private int next;
+        private int recorded;
+        private int failures;
+        private long openedAt;
+        // Trial calls let through, and those succeeded, since the breaker half-opened
+        private int trialsStarted;
+        private int trialsSucceeded;
+
+        private CircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls, long openMs,
+                int halfOpenCalls) {
+            this.failureRateThreshold = failureRateThreshold;
+            this.window = new boolean[Math.max(1, windowSize)];
+            this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+            this.openMs = openMs;
+            this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == OPEN) {
+                if (System.currentTimeMillis() - openedAt < openMs) {
+                    return false;
+                }
+                state = HALF_OPEN;
+                trialsStarted = 0;
+                trialsSucceeded = 0;
+            }
+            if (state == HALF_OPEN) {
+                if (trialsStarted >= halfOpenCalls) {
+                    return false;
+                }
+                trialsStarted++;
+            }
+            return true;
+        }
+
+        // Gives back a trial slot taken by a call that never ran or was cancelled
+        synchronized void release() {
+            if (state == HALF_OPEN && trialsStarted > trialsSucceeded) {
+                trialsStarted--;
+            }
+        }
+
+        synchronized void record(boolean success) {
+            if (state == HALF_OPEN) {
+                if (!success) {
+                    open();
+                } else if (++trialsSucceeded >= halfOpenCalls) {
+                    state = CLOSED;
+                    next = 0;
+                    recorded = 0;
+                    failures = 0;
+                }
+                return;
+            }
+            if (state == OPEN) {
+                return;
+            }
+
+            if (recorded == window.length) {
+                if (!window[next]) {
+                    failures--;
+                }
+            } else {
+                recorded++;
+            }
+            window[next] = success;
+            if (!success) {
+                failures++;
+            }
+            next = (next + 1) % window.length;
+
+            if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                open();
+            }
+        }
+
+        private void open() {
+            state = OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+
+        synchronized int getState() {
+            return state;
+        }
+
+        synchronized double getFailureRate() {
+            return recorded == 0 ? 0.0 : (double) failures / recorded;
+        }
+    }
+
+    /**
+     * Token bucket refilled continuously at {@code ratePerSecond}.
+     */
+    private static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(double ratePerSecond, int burst) {
+            this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire() {
+            refill();
+            if (tokens < 1.0) {
+                return false;
+            }
+            tokens -= 1.0;
+            return true;
+        }
+
+        synchronized double getAvailable() {
+            refill();
+            return Math.floor(tokens);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.LongPredicate;
+
+/**
+ * Users in the same major and study year as the requester. Served from the
+ * attribute index rather than {@code UserRepository.findByMajorAndStudyYear},
+ * so recall stays off the database. The group has no order of its own; every
+ * member gets the same moderate relevance.
+ */
+@Component
+@Order(60)
+public class MajorYearSource implements CandidateSource {
+
+    private static final double RELEVANCE = ATTRIBUTE_WEIGHT / 2;
+
+    private final AttributeIndexService attributeIndexService;
+
+    @Value("${matching.recall.major-year.limit:200}")
+    private int limit;
+
+    public MajorYearSource(AttributeIndexService attributeIndexService) {
+        this.attributeIndexService = attributeIndexService;
+    }
+
+    @Override
+    public String getName() {
+        return "major-year";
+    }
+
+    @Override
+    public Iterator<Candidate> candidates(Long userId, Collection<String> classes, LongPredicate excluded) {
+        AttributeIndexService.Attributes requester = attributeIndexService.getAttributes(userId);
+        if (requester == null || requester.getMajorYear() == null) {
+            return Collections.emptyIterator();
+        }
+        return CandidateSource.lazily(attributeIndexService.getUsersWithMajorYear(requester.getMajorYear()).iterator(),
+                limit, candidateId -> candidateId.equals(userId) || excluded.test(candidateId) ? null
+                        : new Candidate(candidateId, RELEVANCE));
+    }
+}
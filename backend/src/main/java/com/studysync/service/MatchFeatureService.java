@@ -0,0 +1,198 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+import com.studysync.repository.UserRepository;
+import com.studysync.util.WeeklyAvailability;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precomputes {@link MatchFeatures} for every user with a completed profile and
+ * scores pairs of them. Class codes and goals are mapped to small integer ids the
+ * first time they are seen; ids are never reassigned, so vectors built earlier
+ * stay valid as the dictionaries grow. Both are stored as bitsets that grow a
+ * word per 64 ids, so neither dictionary has a size limit.
+ */
+@Service
+public class MatchFeatureService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MatchFeatureService.class);
+
+    private static final double NEARBY_KM = 10.0;
+    // One degree of latitude is ~111 km; pairs further apart than this can skip
+    // the haversine computation entirely
+    private static final double NEARBY_LAT_DEGREES = NEARBY_KM / 111.0;
+
+    private final UserRepository userRepository;
+    private final LocationService locationService;
+    private final ShardRouter shardRouter;
+
+    private final Map<String, Integer> classIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> goalIds = new ConcurrentHashMap<>();
+    private final Map<Long, MatchFeatures> featuresByUser = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    public MatchFeatureService(UserRepository userRepository, LocationService locationService,
+            ShardRouter shardRouter) {
+        this.userRepository = userRepository;
+        this.locationService = locationService;
+        this.shardRouter = shardRouter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        featuresByUser.clear();
+        List<String> shardKeys = shardRouter.localShardKeys(userRepository.findShardKeys());
+        List<User> users = shardKeys.isEmpty() ? List.of()
+                : userRepository.findByProfileCompletedTrueAndShardKeyIn(shardKeys);
+        for (User user : users) {
+            featuresByUser.put(user.getId(), encode(user, versions.incrementAndGet()));
+        }
+        LOGGER.info("Match features built for {} users ({} classes, {} goals)",
+                featuresByUser.size(), classIds.size(), goalIds.size());
+    }
+
+    /**
+     * Refresh the stored vector for a user after a profile edit. Users outside
+     * this node's shards are dropped.
+     */
+    public void updateUser(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        if (user.isProfileCompleted() && shardRouter.isLocal(user)) {
+            featuresByUser.put(user.getId(), encode(user, versions.incrementAndGet()));
+        } else {
+            featuresByUser.remove(user.getId());
+        }
+    }
+
+    /**
+     * Stored vector for a user, or null if they have no completed profile indexed.
+     */
+    public MatchFeatures getFeatures(Long userId) {
+        return featuresByUser.get(userId);
+    }
+
+    public Set<Long> getIndexedUserIds() {
+        return Collections.unmodifiableSet(featuresByUser.keySet());
+    }
+
+    /**
+     * Builds a vector for a loaded user without storing it.
+     */
+    public MatchFeatures encode(User user) {
+        return encode(user, 0L);
+    }
+
+    private MatchFeatures encode(User user, long version) {
+        long[] classBits = new long[Math.max(1, (classIds.size() + 63) >>> 6)];
+        Set<String> classes = user.getClasses();
+        if (classes != null) {
+            for (String classCode : classes) {
+                String normalized = ClassIndexService.normalizeClassCode(classCode);
+                if (normalized != null) {
+                    classBits = setBit(classBits, dictionaryId(classIds, normalized));
+                }
+            }
+        }
+
+        long[] goalBits = new long[Math.max(1, (goalIds.size() + 63) >>> 6)];
+        Set<String> goals = user.getGoals();
+        if (goals != null) {
+            for (String goal : goals) {
+                if (goal != null) {
+                    goalBits = setBit(goalBits, dictionaryId(goalIds, goal));
+                }
+            }
+        }
+
+        int studyStyle = user.getStudyStyle() != null ? user.getStudyStyle().ordinal() : MatchFeatures.NO_STUDY_STYLE;
+        double latitude = user.getLatitude() != null ? user.getLatitude() : Double.NaN;
+        double longitude = user.getLongitude() != null ? user.getLongitude() : Double.NaN;
+
+        return new MatchFeatures(user.getId() != null ? user.getId() : -1L, classBits, goalBits, goals != null,
+                studyStyle, latitude, longitude, WeeklyAvailability.parse(user.getAvailability()), version);
+    }
+
+    /**
+     * Compatibility in [0, 1]: shared classes (40%), study style (20% same, 10%
+     * different), goals (20% shared, 10% otherwise), proximity (10% within
+     * 10 km) and weekly schedule overlap (up to 10%, by the share of the sparser
+     * schedule both are free). Allocation free.
+     */
+    public double score(MatchFeatures a, MatchFeatures b) {
+        double score = 0.0;
+
+        int sharedClasses = a.sharedClassCount(b);
+        if (sharedClasses > 0) {
+            score += (double) sharedClasses / Math.max(a.getClassCount(), b.getClassCount()) * 0.4;
+        }
+
+        if (a.getStudyStyle() != MatchFeatures.NO_STUDY_STYLE && b.getStudyStyle() != MatchFeatures.NO_STUDY_STYLE) {
+            score += a.getStudyStyle() == b.getStudyStyle() ? 0.2 : 0.1;
+        }
+
+        if (a.hasGoals() && b.hasGoals()) {
+            score += a.sharesGoal(b) ? 0.2 : 0.1;
+        }
+
+        if (isNearby(a, b)) {
+            score += 0.1;
+        }
+
+        int sparser = Math.min(a.getAvailableSlots(), b.getAvailableSlots());
+        if (sparser > 0) {
+            score += (double) a.scheduleOverlap(b) / sparser * 0.1;
+        }
+
+        return Math.min(1.0, score);
+    }
+
+    private boolean isNearby(MatchFeatures a, MatchFeatures b) {
+        if (!a.hasLocation() || !b.hasLocation()) {
+            return false;
+        }
+        if (Math.abs(a.getLatitude() - b.getLatitude()) > NEARBY_LAT_DEGREES) {
+            return false;
+        }
+        return locationService.calculateDistance(a.getLatitude(), a.getLongitude(),
+                b.getLatitude(), b.getLongitude()) <= NEARBY_KM;
+    }
+
+    // The dictionary may have grown since the array was sized
+    private static long[] setBit(long[] bits, int id) {
+        int word = id >>> 6;
+        if (word >= bits.length) {
+            long[] grown = new long[word + 1];
+            System.arraycopy(bits, 0, grown, 0, bits.length);
+            bits = grown;
+        }
+        bits[word] |= 1L << (id & 63);
+        return bits;
+    }
+
+    private int dictionaryId(Map<String, Integer> dictionary, String key) {
+        Integer id = dictionary.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (dictionary) {
+            return dictionary.computeIfAbsent(key, k -> dictionary.size());
+        }
+    }
+}
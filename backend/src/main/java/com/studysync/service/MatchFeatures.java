@@ -0,0 +1,155 @@
+package com.studysync.service;
+
+import com.studysync.util.WeeklyAvailability;
+
+import java.util.Arrays;
+
+/**
+ * Compact, immutable snapshot of the profile fields used for compatibility
+ * scoring. Class codes and goals are dictionary-encoded by
+ * {@link MatchFeatureService} so a pair can be scored with popcounts and
+ * arithmetic only.
+ */
+public final class MatchFeatures {
+
+    public static final int NO_STUDY_STYLE = -1;
+
+    private final long userId;
+    private final long[] classBits;
+    private final int classCount;
+    private final long[] goalBits;
+    private final boolean hasGoals;
+    private final int studyStyle;
+    private final double latitude;
+    private final double longitude;
+    private final long[] availability;
+    private final int availableSlots;
+    private final long version;
+
+    MatchFeatures(long userId, long[] classBits, long[] goalBits, boolean hasGoals, int studyStyle,
+            double latitude, double longitude, long[] availability, long version) {
+        this.userId = userId;
+        this.classBits = classBits;
+        this.goalBits = goalBits;
+        this.hasGoals = hasGoals;
+        this.studyStyle = studyStyle;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.availability = availability;
+        this.availableSlots = WeeklyAvailability.slotCount(availability);
+        this.version = version;
+
+        int count = 0;
+        for (long word : classBits) {
+            count += Long.bitCount(word);
+        }
+        this.classCount = count;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Stamp assigned when the vector was stored, increasing with every profile
+     * update; 0 for vectors encoded ad hoc and never stored.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Goals with the first 64 dictionary ids, as one word. An ordering hint for
+     * clustering only; use {@link #sharesGoal} to compare goals.
+     */
+    public long getGoalMask() {
+        return goalBits[0];
+    }
+
+    public boolean hasGoals() {
+        return hasGoals;
+    }
+
+    public int getStudyStyle() {
+        return studyStyle;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public boolean hasLocation() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    /**
+     * Quarter hours per week in the user's stated availability.
+     */
+    public int getAvailableSlots() {
+        return availableSlots;
+    }
+
+    /**
+     * Quarter hours per week both users are available.
+     */
+    public int scheduleOverlap(MatchFeatures other) {
+        return WeeklyAvailability.overlapSlots(availability, other.availability);
+    }
+
+    public int sharedClassCount(MatchFeatures other) {
+        long[] a = classBits;
+        long[] b = other.classBits;
+        int words = Math.min(a.length, b.length);
+        int shared = 0;
+        for (int i = 0; i < words; i++) {
+            shared += Long.bitCount(a[i] & b[i]);
+        }
+        return shared;
+    }
+
+    public boolean sharesGoal(MatchFeatures other) {
+        long[] a = goalBits;
+        long[] b = other.goalBits;
+        int words = Math.min(a.length, b.length);
+        for (int i = 0; i < words; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True when every field that affects scoring is the same. Class and goal
+     * vectors built at different dictionary sizes may differ in length, so
+     * missing words count as zero.
+     */
+    public boolean sameProfile(MatchFeatures other) {
+        if (hasGoals != other.hasGoals || studyStyle != other.studyStyle
+                || Double.compare(latitude, other.latitude) != 0 || Double.compare(longitude, other.longitude) != 0
+                || !Arrays.equals(availability, other.availability)) {
+            return false;
+        }
+        return sameBits(classBits, other.classBits) && sameBits(goalBits, other.goalBits);
+    }
+
+    private static boolean sameBits(long[] a, long[] b) {
+        int words = Math.max(a.length, b.length);
+        for (int i = 0; i < words; i++) {
+            long x = i < a.length ? a[i] : 0L;
+            long y = i < b.length ? b[i] : 0L;
+            if (x != y) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+package com.studysync.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the match deck pipeline. Each stage records how long it
+ * took ({@code matching.stage.duration}) and how many candidates came out of it
+ * ({@code matching.stage.candidates}), tagged by stage name. Heap allocated by a
+ * deck request on the serving thread is recorded as {@code matching.deck.allocated}
+ * where the JVM supports per-thread allocation counters. Each candidate source
+ * records its time ({@code matching.recall.source.duration}) and the new
+ * candidates it added to the recall set ({@code matching.recall.source.yield}),
+ * tagged by source name.
+ */
+@Component
+public class MatchingMetrics {
+
+    public static final String STAGE_RECALL = "recall";
+    public static final String STAGE_SCORE = "score";
+    public static final String STAGE_RERANK = "rerank";
+
+    private final MeterRegistry meterRegistry;
+    private final com.sun.management.ThreadMXBean allocationCounter;
+    private final DistributionSummary deckAllocation;
+
+    public MatchingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        this.allocationCounter = threads instanceof com.sun.management.ThreadMXBean counter
+                && counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()
+                        ? counter
+                        : null;
+        this.deckAllocation = DistributionSummary.builder("matching.deck.allocated")
+                .description("Bytes allocated on the request thread per deck request")
+                .baseUnit("bytes")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or -1 if not supported.
+     */
+    public long currentThreadAllocatedBytes() {
+        return allocationCounter != null ? allocationCounter.getCurrentThreadAllocatedBytes() : -1L;
+    }
+
+    /**
+     * Records what the current thread allocated since {@code startBytes}, a value
+     * from {@link #currentThreadAllocatedBytes()}.
+     */
+    public void recordDeckAllocation(long startBytes) {
+        if (startBytes >= 0) {
+            deckAllocation.record(currentThreadAllocatedBytes() - startBytes);
+        }
+    }
+
+    public void recordStage(String stage, long startNanos, int candidateCount) {
+        Timer.builder("matching.stage.duration")
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("matching.stage.candidates")
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(candidateCount);
+    }
+
+    public void recordSource(String source, long nanos, int yielded) {
+        Timer.builder("matching.recall.source.duration")
+                .tag("source", source)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("matching.recall.source.yield")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(yielded);
+    }
+
+    public MeterRegistry getRegistry() {
+        return meterRegistry;
+    }
+}
@@ -1,8 +1,10 @@
 package com.studysync.service;
 
+import com.studysync.dto.DeckPageDto;
 import com.studysync.dto.MatchCandidateDto;
 import com.studysync.dto.MatchSummaryDto;
 import com.studysync.model.AiMatchSuggestion;
+import com.studysync.model.CandidateFeedEntry;
 import com.studysync.model.Match;
 import com.studysync.model.User;
 import com.studysync.model.enums.MatchStatus;
@@ -11,18 +13,28 @@ import com.studysync.repository.MatchRepository;
 import com.studysync.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import reactor.core.publisher.Mono;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,78 +42,369 @@ public class MatchingService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MatchingService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int DECK_SIZE = 12;
+    private static final int MAX_PAGE_SIZE = 50;
 
     private final MatchRepository matchRepository;
     private final UserRepository userRepository;
     private final ChatMessageRepository chatMessageRepository;
     private final GeminiAiService geminiAiService;
     private final LocationService locationService;
+    private final MatchFeatureService matchFeatureService;
+    private final CandidateRanker candidateRanker;
+    private final CandidateFeedService candidateFeedService;
+    private final SeenFilterService seenFilterService;
+    private final DeckSnapshotService deckSnapshotService;
+    private final DeckCacheService deckCacheService;
+    private final PairLockService pairLockService;
+    private final PairScoreCache pairScoreCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final MatchingMetrics matchingMetrics;
+    private final AttributeIndexService attributeIndexService;
+
+    @Value("${matching.ai.max-concurrency:4}")
+    private int aiMaxConcurrency;
+
+    @Value("${matching.ai.deadline-ms:5000}")
+    private long aiDeadlineMs;
+
+    @Value("${matching.shortlist.size:24}")
+    private int shortlistSize;
+
+    @Value("${matching.rerank.ai-weight:0.5}")
+    private double rerankAiWeight;
+
+    @Value("${matching.feed.size:50}")
+    private int feedSize;
+
+    @Value("${matching.deck.snapshot.size:100}")
+    private int deckSnapshotSize;
 
     public MatchingService(MatchRepository matchRepository,
             UserRepository userRepository,
             ChatMessageRepository chatMessageRepository,
             GeminiAiService geminiAiService,
-            LocationService locationService) {
+            LocationService locationService,
+            MatchFeatureService matchFeatureService,
+            CandidateRanker candidateRanker,
+            CandidateFeedService candidateFeedService,
+            SeenFilterService seenFilterService,
+            DeckSnapshotService deckSnapshotService,
+            DeckCacheService deckCacheService,
+            PairLockService pairLockService,
+            PairScoreCache pairScoreCache,
+            PlatformTransactionManager transactionManager,
+            MatchingMetrics matchingMetrics,
+            AttributeIndexService attributeIndexService) {
         this.matchRepository = matchRepository;
         this.userRepository = userRepository;
         this.chatMessageRepository = chatMessageRepository;
         this.geminiAiService = geminiAiService;
         this.locationService = locationService;
+        this.matchFeatureService = matchFeatureService;
+        this.candidateRanker = candidateRanker;
+        this.candidateFeedService = candidateFeedService;
+        this.seenFilterService = seenFilterService;
+        this.deckSnapshotService = deckSnapshotService;
+        this.deckCacheService = deckCacheService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pairLockService = pairLockService;
+        this.pairScoreCache = pairScoreCache;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.matchingMetrics = matchingMetrics;
+        this.attributeIndexService = attributeIndexService;
     }
 
-    @Transactional(readOnly = true)
     public List<MatchCandidateDto> findPotentialMatches(User currentUser) {
         if (currentUser == null || currentUser.getId() == null) {
             return List.of();
         }
+        attributeIndexService.recordActivity(currentUser.getId());
+        return deckCacheService.get(currentUser.getId(), () -> buildDeck(currentUser));
+    }
 
-        List<User> allUsers = userRepository.findAll();
-        List<MatchCandidateDto> candidates = new ArrayList<>();
+    private List<MatchCandidateDto> buildDeck(User currentUser) {
+        long allocatedStart = matchingMetrics.currentThreadAllocatedBytes();
 
-        for (User candidate : allUsers) {
-            if (candidate.getId().equals(currentUser.getId())) {
-                continue;
+        // Stage 1 (recall + deterministic scoring) runs inside a short read-only
+        // transaction that fetches everything the DTOs read (classes and goals come
+        // with the candidates). Stage 2 (AI re-rank) runs after it; with open-in-view
+        // off the connection is back in the pool by then, so none is held while
+        // waiting on Gemini
+        List<ScoredCandidate> shortlist = readOnlyTransaction.execute(status -> shortlistCandidates(currentUser));
+        if (shortlist == null || shortlist.isEmpty()) {
+            return List.of();
+        }
+
+        long rerankStart = System.nanoTime();
+        Map<Long, AiMatchSuggestion> suggestions = enrichWithAi(shortlist.get(0).requester, shortlist);
+
+        // Re-ranked on scores alone; DTOs, summaries and distance strings are only
+        // built for the candidates that are returned
+        List<MatchCandidateDto> deck = shortlist.stream()
+                .sorted(Comparator.comparingDouble((ScoredCandidate scored) -> rerankScore(scored,
+                        suggestions.get(scored.candidate.getId()))).reversed())
+                .limit(DECK_SIZE)
+                .map(scored -> buildCandidateDto(scored, suggestions.get(scored.candidate.getId())))
+                .collect(Collectors.toList());
+        matchingMetrics.recordStage(MatchingMetrics.STAGE_RERANK, rerankStart, deck.size());
+        matchingMetrics.recordDeckAllocation(allocatedStart);
+        return deck;
+    }
+
+    private List<ScoredCandidate> shortlistCandidates(User currentUser) {
+        User requester = userRepository.findWithProfileById(currentUser.getId()).orElse(null);
+        if (requester == null) {
+            return List.of();
+        }
+        CandidateRanker.RankedCandidates ranked = rankForRequester(requester, Math.max(shortlistSize, DECK_SIZE));
+        return loadScoredCandidates(requester, ranked, 0, ranked.size(), candidateId -> false);
+    }
+
+    /**
+     * Returns one page of the user's deck. The first call (no cursor) ranks the
+     * deck once into a snapshot; later calls page through that snapshot, skipping
+     * anyone swiped on in the meantime. Returns null when the cursor is malformed,
+     * expired or belongs to another user.
+     */
+    public DeckPageDto getDeckPage(User currentUser, String cursor, int pageSize) {
+        if (currentUser == null || currentUser.getId() == null) {
+            return new DeckPageDto(List.of(), null);
+        }
+        attributeIndexService.recordActivity(currentUser.getId());
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        long allocatedStart = matchingMetrics.currentThreadAllocatedBytes();
+
+        DeckSnapshotService.DeckSnapshot snapshot;
+        int offset;
+        if (cursor == null || cursor.isBlank()) {
+            CandidateRanker.RankedCandidates ranked = readOnlyTransaction.execute(status -> {
+                User requester = userRepository.findWithProfileById(currentUser.getId()).orElse(null);
+                return requester != null ? rankForRequester(requester, deckSnapshotSize) : null;
+            });
+            if (ranked == null) {
+                return new DeckPageDto(List.of(), null);
             }
-            if (!candidate.isProfileCompleted()) {
-                continue;
+            snapshot = deckSnapshotService.create(currentUser.getId(), ranked);
+            offset = 0;
+        } else {
+            DeckSnapshotService.DeckCursor decoded = deckSnapshotService.decodeCursor(cursor);
+            snapshot = decoded != null ? deckSnapshotService.get(decoded.getSnapshotId()) : null;
+            if (snapshot == null || !snapshot.getUserId().equals(currentUser.getId())) {
+                return null;
             }
+            offset = decoded.getOffset();
+        }
 
-            MatchCandidateDto dto = buildCandidateDto(currentUser, candidate);
-            if (dto != null) {
-                candidates.add(dto);
+        CandidateRanker.RankedCandidates ranked = snapshot.getRanked();
+        LongPredicate seen = seenFilterService.seenBy(currentUser.getId());
+
+        // Walk the snapshot from the cursor, skipping swiped users, until the page
+        // is full; the next cursor points just past the last entry consumed
+        int end = offset;
+        int taken = 0;
+        while (end < ranked.size() && taken < size) {
+            if (!seen.test(ranked.idAt(end))) {
+                taken++;
             }
+            end++;
+        }
+        int pageStart = offset;
+        int pageEnd = end;
+
+        List<ScoredCandidate> page = readOnlyTransaction.execute(status -> {
+            User requester = userRepository.findWithProfileById(currentUser.getId()).orElse(null);
+            return requester != null ? loadScoredCandidates(requester, ranked, pageStart, pageEnd, seen) : null;
+        });
+        if (page == null || page.isEmpty()) {
+            return new DeckPageDto(List.of(), null);
         }
 
-        return candidates.stream()
-                .sorted((a, b) -> Integer.compare(b.getCompatibilityScore(), a.getCompatibilityScore()))
-                .limit(12)
+        Map<Long, AiMatchSuggestion> suggestions = enrichWithAi(page.get(0).requester, page);
+        List<MatchCandidateDto> candidates = page.stream()
+                .map(scored -> buildCandidateDto(scored, suggestions.get(scored.candidate.getId())))
                 .collect(Collectors.toList());
+
+        String nextCursor = end < ranked.size() ? deckSnapshotService.encodeCursor(snapshot, end) : null;
+        matchingMetrics.recordDeckAllocation(allocatedStart);
+        return new DeckPageDto(candidates, nextCursor);
     }
 
-    @Transactional
-    public Match processSwipe(User currentUser, User targetUser, boolean liked) {
-        if (currentUser == null || targetUser == null) {
+    /**
+     * Stage 1 for a loaded requester: served from the materialized feed when the
+     * nightly job or the worker has built one, otherwise (a profile completed since
+     * the last write, or swipes used up part of the feed before its rebuild) ranked
+     * online from the class index and a feed build is queued. Already-seen users
+     * are excluded.
+     */
+    private CandidateRanker.RankedCandidates rankForRequester(User requester, int limit) {
+        long recallStart = System.nanoTime();
+
+        // Users already swiped, rejected or matched are excluded before any scoring
+        LongPredicate seen = seenFilterService.seenBy(requester.getId());
+
+        List<CandidateFeedEntry> feed = candidateFeedService.readFeed(requester.getId(), Math.max(feedSize, limit));
+        if (!feed.isEmpty()) {
+            long[] ids = new long[Math.min(limit, feed.size())];
+            double[] scores = new double[ids.length];
+            int count = 0;
+            for (CandidateFeedEntry entry : feed) {
+                if (count >= ids.length) {
+                    break;
+                }
+                if (seen.test(entry.getCandidateId())) {
+                    continue;
+                }
+                ids[count] = entry.getCandidateId();
+                scores[count] = entry.getScore();
+                count++;
+            }
+            // Swipes since the last rebuild can use the feed up; rank online until
+            // the rebuild they queued has run
+            if (count >= ids.length) {
+                matchingMetrics.recordStage(MatchingMetrics.STAGE_RECALL, recallStart, count);
+                return new CandidateRanker.RankedCandidates(Arrays.copyOf(ids, count),
+                        Arrays.copyOf(scores, count));
+            }
+        } else if (candidateFeedService.hasEmptyFeed(requester.getId())) {
+            matchingMetrics.recordStage(MatchingMetrics.STAGE_RECALL, recallStart, 0);
+            return new CandidateRanker.RankedCandidates(new long[0], new double[0]);
+        }
+
+        // Candidates come from the class index and the similar-students index
+        // instead of a scan of the users table
+        Set<Long> candidateIds = candidateRanker.recall(requester.getId(), requester.getClasses(), seen);
+        matchingMetrics.recordStage(MatchingMetrics.STAGE_RECALL, recallStart, candidateIds.size());
+
+        long scoreStart = System.nanoTime();
+        CandidateRanker.RankedCandidates ranked = candidateRanker.rank(
+                featuresOf(requester), candidateIds, limit, seen);
+        matchingMetrics.recordStage(MatchingMetrics.STAGE_SCORE, scoreStart, ranked.size());
+
+        if (ranked.size() > 0 && matchFeatureService.getFeatures(requester.getId()) != null) {
+            candidateFeedService.markDirty(requester.getId());
+        }
+        return ranked;
+    }
+
+    /**
+     * Loads the User rows for ranks [from, to) and builds their scored entries in
+     * rank order. User rows are only ever loaded for this slice.
+     */
+    private List<ScoredCandidate> loadScoredCandidates(User requester, CandidateRanker.RankedCandidates ranked,
+            int from, int to, LongPredicate skip) {
+        List<Long> ids = new ArrayList<>(to - from);
+        for (int rank = from; rank < to; rank++) {
+            if (!skip.test(ranked.idAt(rank))) {
+                ids.add(ranked.idAt(rank));
+            }
+        }
+
+        Map<Long, User> usersById = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (User user : userRepository.findByIdIn(ids)) {
+                usersById.put(user.getId(), user);
+            }
+        }
+
+        List<ScoredCandidate> scored = new ArrayList<>(ids.size());
+        for (int rank = from; rank < to; rank++) {
+            User candidate = usersById.get(ranked.idAt(rank));
+            if (candidate == null || !candidate.isProfileCompleted()) {
+                continue;
+            }
+            scored.add(new ScoredCandidate(requester, candidate, (int) Math.round(ranked.scoreAt(rank) * 100)));
+        }
+        return scored;
+    }
+
+    /**
+     * Blends the Gemini score into the deterministic one; candidates without an AI
+     * score keep their deterministic score.
+     */
+    private double rerankScore(ScoredCandidate scored, AiMatchSuggestion suggestion) {
+        Double aiPercent = aiCompatibilityPercent(suggestion);
+        if (aiPercent == null) {
+            return scored.compatibilityPercent;
+        }
+        return (1 - rerankAiWeight) * scored.compatibilityPercent + rerankAiWeight * aiPercent;
+    }
+
+    private static Double aiCompatibilityPercent(AiMatchSuggestion suggestion) {
+        if (suggestion == null || suggestion.getCompatibilityScore() == null) {
             return null;
         }
+        return Math.min(100.0, suggestion.getCompatibilityScore() * 100.0);
+    }
 
-        User refreshedCurrent = userRepository.findById(currentUser.getId()).orElse(null);
-        User refreshedTarget = userRepository.findById(targetUser.getId()).orElse(null);
+    /**
+     * Fetches Gemini suggestions for the shortlisted candidates in batches, capped
+     * at {@code aiMaxConcurrency} requests in flight. Whatever has not arrived by
+     * the overall deadline is left out and the caller falls back to the
+     * deterministic summary for it.
+     */
+    private Map<Long, AiMatchSuggestion> enrichWithAi(User requester, List<ScoredCandidate> ranked) {
+        Duration deadline = Duration.ofMillis(aiDeadlineMs);
+        List<User> candidates = ranked.stream().map(scored -> scored.candidate).collect(Collectors.toList());
+        try {
+            Map<Long, AiMatchSuggestion> suggestions = geminiAiService
+                    .generateMatchSuggestions(requester, candidates, aiMaxConcurrency)
+                    .onErrorResume(ex -> {
+                        LOGGER.warn("Gemini AI suggestions failed: {}", ex.getMessage());
+                        return Flux.empty();
+                    })
+                    .take(deadline)
+                    .collectMap(suggestion -> suggestion.getSuggestedUser().getId())
+                    .block(deadline.plusSeconds(1));
+            return suggestions != null ? suggestions : Map.of();
+        } catch (Exception ex) {
+            LOGGER.warn("Gemini AI enrichment did not complete: {}", ex.getMessage());
+            return Map.of();
+        }
+    }
 
-        if (refreshedCurrent == null || refreshedTarget == null) {
+    /**
+     * Applies one swipe. Runs under the pair's lock in its own transaction so
+     * two users liking each other at the same moment end up with exactly one
+     * MATCHED row.
+     */
+    public Match processSwipe(User currentUser, User targetUser, boolean liked) {
+        if (currentUser == null || targetUser == null || currentUser.getId() == null || targetUser.getId() == null) {
             return null;
         }
+        attributeIndexService.recordActivity(currentUser.getId());
+
+        long pairKey = Match.pairKey(currentUser.getId(), targetUser.getId());
+        Match result = pairLockService.executeLocked(List.of(pairKey), writeTransaction, status -> {
+            User refreshedCurrent = userRepository.findById(currentUser.getId()).orElse(null);
+            User refreshedTarget = userRepository.findById(targetUser.getId()).orElse(null);
+            if (refreshedCurrent == null || refreshedTarget == null) {
+                return null;
+            }
+            return applySwipe(refreshedCurrent, refreshedTarget, liked);
+        });
 
+        if (result != null) {
+            seenFilterService.recordSwipe(currentUser.getId(), targetUser.getId(), result.getStatus());
+        }
+        return result;
+    }
+
+    private Match applySwipe(User refreshedCurrent, User refreshedTarget, boolean liked) {
         Match existingMatch = matchRepository.findByUsers(refreshedCurrent, refreshedTarget);
 
         if (existingMatch != null) {
-            if (liked && existingMatch.getStatus() == MatchStatus.PENDING) {
-                existingMatch.setStatus(MatchStatus.MATCHED);
-                existingMatch.setMatchedAt(java.time.LocalDateTime.now());
-                return matchRepository.save(existingMatch);
+            // Only the other side's like completes a pending match; liking again
+            // your own pending like leaves it pending
+            boolean completesMatch = liked && existingMatch.getStatus() == MatchStatus.PENDING
+                    && existingMatch.getUser2().getId().equals(refreshedCurrent.getId());
+            if (completesMatch) {
+                return transition(existingMatch, MatchStatus.MATCHED, LocalDateTime.now());
             }
-            if (!liked) {
-                existingMatch.setStatus(MatchStatus.REJECTED);
-                return matchRepository.save(existingMatch);
+            if (!liked && existingMatch.getStatus() != MatchStatus.REJECTED) {
+                return transition(existingMatch, MatchStatus.REJECTED, existingMatch.getMatchedAt());
             }
             return existingMatch;
         }
@@ -113,8 +416,7 @@ public class MatchingService {
         Set<String> sharedClasses = computeSharedClasses(refreshedCurrent, refreshedTarget);
         newMatch.setSharedClasses(new ArrayList<>(sharedClasses));
 
-        int compatibilityScore = (int) Math.round(
-                calculateCompatibilityScore(refreshedCurrent, refreshedTarget, new ArrayList<>(sharedClasses)) * 100);
+        int compatibilityScore = (int) Math.round(calculateCompatibilityScore(refreshedCurrent, refreshedTarget) * 100);
         newMatch.setCompatibilityScore(compatibilityScore);
 
         if (liked) {
@@ -123,7 +425,16 @@ public class MatchingService {
             newMatch.setStatus(MatchStatus.REJECTED);
         }
 
-        return matchRepository.save(newMatch);
+        // Flushed here so a duplicate pair fails inside the retried callback
+        return matchRepository.saveAndFlush(newMatch);
+    }
+
+    private Match transition(Match match, MatchStatus to, LocalDateTime matchedAt) {
+        int updated = matchRepository.transitionStatus(match.getId(), match.getStatus(), to, matchedAt);
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Match " + match.getId() + " changed concurrently");
+        }
+        return matchRepository.findById(match.getId()).orElse(null);
     }
 
     @Transactional(readOnly = true)
@@ -150,41 +461,17 @@ public class MatchingService {
         return matchRepository.findById(matchId).orElse(null);
     }
 
-    private MatchCandidateDto buildCandidateDto(User currentUser, User candidate) {
-        Set<String> sharedClasses = computeSharedClasses(currentUser, candidate);
-        if (sharedClasses.isEmpty()) {
-            return null;
-        }
-
-        List<String> sharedGoals = computeSharedGoals(currentUser, candidate);
+    private MatchCandidateDto buildCandidateDto(ScoredCandidate scored, AiMatchSuggestion suggestion) {
+        User candidate = scored.candidate;
 
-        double baseCompatibility = calculateCompatibilityScore(currentUser, candidate, new ArrayList<>(sharedClasses));
-        int compatibilityPercent = (int) Math.round(baseCompatibility * 100);
-
-        Double aiCompatibilityPercent = null;
-        String aiSummary = null;
-
-        try {
-            Mono<AiMatchSuggestion> suggestionMono = geminiAiService.generateMatchSuggestion(currentUser, candidate);
-            AiMatchSuggestion suggestion = suggestionMono.block(Duration.ofSeconds(6));
-            if (suggestion != null) {
-                if (suggestion.getCompatibilityScore() != null) {
-                    aiCompatibilityPercent = suggestion.getCompatibilityScore() * 100.0;
-                    if (aiCompatibilityPercent > 100) {
-                        aiCompatibilityPercent = 100.0;
-                    }
-                }
-                aiSummary = suggestion.getAiReasoning();
-            }
-        } catch (Exception ex) {
-            LOGGER.warn("Gemini AI suggestion failed: {}", ex.getMessage());
-        }
+        Double aiCompatibilityPercent = aiCompatibilityPercent(suggestion);
+        String aiSummary = suggestion != null ? suggestion.getAiReasoning() : null;
 
         if (aiSummary == null || aiSummary.isBlank()) {
-            aiSummary = buildFallbackSummary(candidate, sharedClasses, sharedGoals);
+            aiSummary = buildFallbackSummary(candidate, scored.sharedClasses(), scored.sharedGoals());
         }
 
-        String distance = locationService.getDistanceDescription(currentUser, candidate);
+        String distance = locationService.getDistanceDescription(scored.requester, candidate);
         String studyStyle = candidate.getStudyStyle() != null ? candidate.getStudyStyle().name() : null;
 
         return new MatchCandidateDto(
@@ -195,21 +482,21 @@ public class MatchingService {
                 candidate.getStudyYear(),
                 studyStyle,
                 candidate.getProfilePicture(),
-                sharedClasses,
-                sharedGoals,
-                compatibilityPercent,
+                scored.sharedClasses(),
+                scored.sharedGoals(),
+                scored.compatibilityPercent,
                 aiCompatibilityPercent,
                 aiSummary,
                 distance);
     }
 
-    private Set<String> computeSharedClasses(User currentUser, User candidate) {
+    private static Set<String> computeSharedClasses(User currentUser, User candidate) {
         Set<String> shared = new HashSet<>(currentUser.getClasses());
         shared.retainAll(candidate.getClasses());
         return shared;
     }
 
-    private List<String> computeSharedGoals(User currentUser, User candidate) {
+    private static List<String> computeSharedGoals(User currentUser, User candidate) {
         if (currentUser.getGoals() == null || candidate.getGoals() == null) {
             return List.of();
         }
@@ -220,9 +507,14 @@ public class MatchingService {
 
     private String buildFallbackSummary(User candidate, Set<String> sharedClasses, List<String> sharedGoals) {
         StringBuilder summary = new StringBuilder();
-        summary.append("You both share ");
-        summary.append(sharedClasses.size());
-        summary.append(sharedClasses.size() == 1 ? " class" : " classes");
+        if (sharedClasses.isEmpty()) {
+            // Recalled as a similar student rather than a classmate
+            summary.append("You have similar study profiles");
+        } else {
+            summary.append("You both share ");
+            summary.append(sharedClasses.size());
+            summary.append(sharedClasses.size() == 1 ? " class" : " classes");
+        }
 
         if (!sharedGoals.isEmpty()) {
             summary.append(" and have similar goals like ");
@@ -276,37 +568,48 @@ public class MatchingService {
                 lastMessageTime);
     }
 
-    private double calculateCompatibilityScore(User user1, User user2, List<String> sharedClasses) {
-        double score = 0.0;
+    private double calculateCompatibilityScore(User user1, User user2) {
+        return pairScoreCache.score(user1, user2);
+    }
 
-        if (sharedClasses != null && !sharedClasses.isEmpty()) {
-            double classScore = (double) sharedClasses.size()
-                    / Math.max(user1.getClasses().size(), user2.getClasses().size());
-            score += classScore * 0.4;
-        }
+    /**
+     * The stored vector when the user is indexed (so pair scores can come from
+     * the cache), otherwise one encoded from the loaded profile.
+     */
+    private MatchFeatures featuresOf(User user) {
+        MatchFeatures features = matchFeatureService.getFeatures(user.getId());
+        return features != null ? features : matchFeatureService.encode(user);
+    }
 
-        if (user1.getStudyStyle() != null && user2.getStudyStyle() != null) {
-            if (user1.getStudyStyle() == user2.getStudyStyle()) {
-                score += 0.3;
-            } else {
-                score += 0.15;
-            }
+    /**
+     * A ranked candidate with its User row loaded. Shared classes and goals are
+     * only worked out if the candidate makes it into the returned deck.
+     */
+    private static final class ScoredCandidate {
+        private final User requester;
+        private final User candidate;
+        private final int compatibilityPercent;
+        private Set<String> sharedClasses;
+        private List<String> sharedGoals;
+
+        private ScoredCandidate(User requester, User candidate, int compatibilityPercent) {
+            this.requester = requester;
+            this.candidate = candidate;
+            this.compatibilityPercent = compatibilityPercent;
         }
 
-        if (user1.getGoals() != null && user2.getGoals() != null) {
-            boolean hasSharedGoal = user1.getGoals().stream()
-                    .anyMatch(goal -> goal != null && user2.getGoals().contains(goal));
-            if (hasSharedGoal) {
-                score += 0.2;
-            } else {
-                score += 0.1;
+        private Set<String> sharedClasses() {
+            if (sharedClasses == null) {
+                sharedClasses = computeSharedClasses(requester, candidate);
             }
+            return sharedClasses;
         }
 
-        if (locationService.areUsersNearby(user1, user2, 10.0)) {
-            score += 0.1;
+        private List<String> sharedGoals() {
+            if (sharedGoals == null) {
+                sharedGoals = computeSharedGoals(requester, candidate);
+            }
+            return sharedGoals;
         }
-
-        return Math.min(1.0, score);
     }
 }
\ No newline at end of file
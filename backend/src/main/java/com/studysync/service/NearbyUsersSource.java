@@ -0,0 +1,84 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Users living within {@code radius-km} of the requester, closest first, from
+ * the attribute index's grid. At most {@code max-scan} grid members are looked
+ * at, nearest grid cells first, so a dense city centre costs no more than a
+ * quiet suburb and the closest users are never the ones cut.
+ */
+@Component
+@Order(40)
+public class NearbyUsersSource implements CandidateSource {
+
+    private static final double KM_PER_DEGREE = 111.0;
+
+    private final AttributeIndexService attributeIndexService;
+    private final LocationService locationService;
+
+    @Value("${matching.recall.nearby.limit:200}")
+    private int limit;
+
+    @Value("${matching.recall.nearby.radius-km:10}")
+    private double radiusKm;
+
+    @Value("${matching.recall.nearby.max-scan:5000}")
+    private int maxScan;
+
+    public NearbyUsersSource(AttributeIndexService attributeIndexService, LocationService locationService) {
+        this.attributeIndexService = attributeIndexService;
+        this.locationService = locationService;
+    }
+
+    @Override
+    public String getName() {
+        return "nearby";
+    }
+
+    @Override
+    public Iterator<Candidate> candidates(Long userId, Collection<String> classes, LongPredicate excluded) {
+        AttributeIndexService.Attributes requester = attributeIndexService.getAttributes(userId);
+        if (requester == null || !requester.hasLocation()) {
+            return Collections.emptyIterator();
+        }
+        double latitude = requester.getLatitude();
+        double longitude = requester.getLongitude();
+        double cellKm = AttributeIndexService.CELL_DEGREES * KM_PER_DEGREE;
+        int latRadius = (int) Math.ceil(radiusKm / cellKm);
+        // Longitude cells shrink towards the poles; capped so the scan stays bounded
+        double cosLatitude = Math.max(0.05, Math.cos(Math.toRadians(latitude)));
+        int lngRadius = Math.min(50, (int) Math.ceil(radiusKm / (cellKm * cosLatitude)));
+
+        List<Long> nearby = new ArrayList<>();
+        attributeIndexService.collectNearby(latitude, longitude, latRadius, lngRadius, nearby, maxScan);
+
+        List<Candidate> ranked = new ArrayList<>();
+        for (Long candidateId : nearby) {
+            if (candidateId.equals(userId) || excluded.test(candidateId)) {
+                continue;
+            }
+            AttributeIndexService.Attributes candidate = attributeIndexService.getAttributes(candidateId);
+            if (candidate == null || !candidate.hasLocation()) {
+                continue;
+            }
+            double distance = locationService.calculateDistance(latitude, longitude,
+                    candidate.getLatitude(), candidate.getLongitude());
+            if (distance <= radiusKm) {
+                ranked.add(new Candidate(candidateId, ATTRIBUTE_WEIGHT * (1.0 - distance / radiusKm)));
+            }
+        }
+        ranked.sort(Comparator.comparingDouble(Candidate::getRelevance).reversed());
+        return ranked.subList(0, Math.min(limit, ranked.size())).iterator();
+    }
+}
@@ -0,0 +1,111 @@
+package com.studysync.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes swipes on the same pair of users within this JVM. Pairs are hashed
+ * onto a fixed array of locks, so memory stays bounded and unrelated pairs rarely
+ * contend. Locks are taken outside the transaction and released after commit, so
+ * the next swipe on a pair always sees the previous one.
+ *
+ * The unique pair key on the matches table and the conditional status updates
+ * still catch anything that slips past the locks (another node, a racing
+ * insert); those attempts are rolled back and retried.
+ */
+@Service
+public class PairLockService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PairLockService.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ReentrantLock[] stripes;
+    private final Timer lockWait;
+    private final Counter retries;
+
+    public PairLockService(@Value("${matching.swipe.lock-stripes:256}") int stripeCount,
+            MeterRegistry meterRegistry) {
+        this.stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.lockWait = Timer.builder("matching.swipe.lock.wait")
+                .description("Time spent waiting for pair locks before a swipe transaction")
+                .register(meterRegistry);
+        this.retries = Counter.builder("matching.swipe.retries")
+                .description("Swipe transactions retried after a concurrent write on the same pair")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the callback in a fresh transaction while holding the locks for all
+     * given pair keys. Stripes are acquired in ascending order so batches that
+     * overlap cannot deadlock. Retried when the database reports a duplicate pair
+     * or a lost conditional update.
+     */
+    public <T> T executeLocked(Collection<Long> pairKeys, TransactionTemplate transactionTemplate,
+            TransactionCallback<T> callback) {
+        int[] order = stripeOrder(pairKeys);
+
+        long waitStart = System.nanoTime();
+        for (int stripe : order) {
+            stripes[stripe].lock();
+        }
+        lockWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        try {
+            for (int attempt = 1;; attempt++) {
+                try {
+                    return transactionTemplate.execute(callback);
+                } catch (DataIntegrityViolationException | OptimisticLockingFailureException ex) {
+                    if (attempt >= MAX_ATTEMPTS) {
+                        throw ex;
+                    }
+                    retries.increment();
+                    LOGGER.debug("Concurrent write on swiped pair, retrying (attempt {}): {}", attempt, ex.getMessage());
+                }
+            }
+        } finally {
+            for (int i = order.length - 1; i >= 0; i--) {
+                stripes[order[i]].unlock();
+            }
+        }
+    }
+
+    private int[] stripeOrder(Collection<Long> pairKeys) {
+        int[] indices = new int[pairKeys.size()];
+        int count = 0;
+        for (Long pairKey : pairKeys) {
+            indices[count++] = stripeFor(pairKey);
+        }
+        Arrays.sort(indices, 0, count);
+
+        // Several pairs can share a stripe; each stripe is locked once
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || indices[distinct - 1] != indices[i]) {
+                indices[distinct++] = indices[i];
+            }
+        }
+        return Arrays.copyOf(indices, distinct);
+    }
+
+    private int stripeFor(long pairKey) {
+        long mixed = pairKey * 0x9E3779B97F4A7C15L;
+        return (int) ((mixed >>> 32) % stripes.length);
+    }
+}
@@ -0,0 +1,125 @@
+package com.studysync.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.studysync.model.Match;
+import com.studysync.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * Compatibility scores keyed by the unordered user pair, so (u, v) and (v, u)
+ * share one entry and a pair scored for either user's deck, a swipe or the AI
+ * fallback is not scored again. Each entry carries the versions of both users'
+ * feature vectors it was computed from and only counts as a hit while both are
+ * still current; a profile change therefore invalidates every pair of that user
+ * without touching the cache. Bounded in size; Caffeine evicts the pairs least
+ * likely to be read again.
+ *
+ * Only scores computed from stored vectors are cached; scores for ad-hoc
+ * vectors are computed and returned without being kept.
+ */
+@Service
+public class PairScoreCache {
+
+    private final MatchFeatureService matchFeatureService;
+    private final Cache<Long, StampedScore> scores;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PairScoreCache(MatchFeatureService matchFeatureService,
+            @Value("${matching.pair-score.cache.max-size:1000000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.matchFeatureService = matchFeatureService;
+        this.scores = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+
+        Gauge.builder("matching.pair-score.cache.size", scores, Cache::estimatedSize)
+                .description("Stored pair compatibility scores")
+                .register(meterRegistry);
+        this.hits = Counter.builder("matching.pair-score.cache.requests").tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("matching.pair-score.cache.requests").tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compatibility in [0, 1] for two loaded users, using their stored vectors
+     * when they have them.
+     */
+    public double score(User a, User b) {
+        return score(featuresOf(a), featuresOf(b));
+    }
+
+    /**
+     * Compatibility in [0, 1] for the pair, served from the cache when possible.
+     */
+    public double score(MatchFeatures a, MatchFeatures b) {
+        if (a.getVersion() == 0L || b.getVersion() == 0L) {
+            return matchFeatureService.score(a, b);
+        }
+
+        long key = Match.pairKey(a.getUserId(), b.getUserId());
+        StampedScore cached = scores.getIfPresent(key);
+        if (cached != null && cached.isCurrentFor(a, b)) {
+            hits.increment();
+            return cached.score;
+        }
+        misses.increment();
+
+        double score = matchFeatureService.score(a, b);
+        scores.put(key, new StampedScore(a, b, score));
+        return score;
+    }
+
+    /**
+     * Recomputes the user's cached pairs with each of the given users from the
+     * current stored vectors, so the next deck view after a profile change is
+     * still a hit. Pairs not in the cache are left out; stale entries for any
+     * other pair are ignored by their version stamps.
+     */
+    public void refreshPairs(long userId, Collection<Long> otherUserIds) {
+        MatchFeatures features = matchFeatureService.getFeatures(userId);
+        for (Long otherId : otherUserIds) {
+            long key = Match.pairKey(userId, otherId);
+            MatchFeatures other = matchFeatureService.getFeatures(otherId);
+            if (features == null || other == null) {
+                scores.invalidate(key);
+            } else if (scores.getIfPresent(key) != null) {
+                scores.put(key, new StampedScore(features, other, matchFeatureService.score(features, other)));
+            }
+        }
+    }
+
+    private MatchFeatures featuresOf(User user) {
+        MatchFeatures features = user.getId() != null ? matchFeatureService.getFeatures(user.getId()) : null;
+        return features != null ? features : matchFeatureService.encode(user);
+    }
+
+    private static final class StampedScore {
+        // Versions in key order: the smaller user id first
+        private final long firstVersion;
+        private final long secondVersion;
+        private final double score;
+
+        private StampedScore(MatchFeatures a, MatchFeatures b, double score) {
+            boolean aFirst = a.getUserId() < b.getUserId();
+            this.firstVersion = aFirst ? a.getVersion() : b.getVersion();
+            this.secondVersion = aFirst ? b.getVersion() : a.getVersion();
+            this.score = score;
+        }
+
+        private boolean isCurrentFor(MatchFeatures a, MatchFeatures b) {
+            boolean aFirst = a.getUserId() < b.getUserId();
+            return firstVersion == (aFirst ? a.getVersion() : b.getVersion())
+                    && secondVersion == (aFirst ? b.getVersion() : a.getVersion());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.studysync.service;
+
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * The part of a profile edit that reaches other users: rescoring the pairs the
+ * user can appear in, queuing those users' feeds for a rebuild and dropping
+ * their cached decks. {@link ProfileChangeListener} hands it over once its own
+ * indexes are updated, so the request that saved the profile never waits on a
+ * fan-out proportional to the size of the user's classes. Pair scores are taken
+ * from the stored vectors when the task runs, so a late task still writes the
+ * latest ones.
+ */
+@Component
+public class ProfileChangeFanOut {
+
+    private final ClassIndexService classIndexService;
+    private final CandidateFeedService candidateFeedService;
+    private final PairScoreCache pairScoreCache;
+    private final DeckCacheService deckCacheService;
+
+    public ProfileChangeFanOut(ClassIndexService classIndexService,
+            CandidateFeedService candidateFeedService,
+            PairScoreCache pairScoreCache,
+            DeckCacheService deckCacheService) {
+        this.classIndexService = classIndexService;
+        this.candidateFeedService = candidateFeedService;
+        this.pairScoreCache = pairScoreCache;
+        this.deckCacheService = deckCacheService;
+    }
+
+    /**
+     * Rescores and requeues everyone sharing one of the user's old or new classes.
+     */
+    @Async("profileFanOutExecutor")
+    public void rescoreClassmates(Long userId, Set<String> affectedClasses) {
+        Set<Long> affectedUsers = classIndexService.findUsersSharingClasses(userId, affectedClasses);
+        pairScoreCache.refreshPairs(userId, affectedUsers);
+        candidateFeedService.onProfileChanged(userId, affectedUsers);
+        deckCacheService.invalidateAll(affectedUsers);
+    }
+
+    /**
+     * Rebuilds the feeds of a user's former classmates after the user left this
+     * node's shards.
+     */
+    @Async("profileFanOutExecutor")
+    public void dropFromClassmates(Long userId, Set<String> previousClasses) {
+        Set<Long> formerClassmates = classIndexService.findUsersSharingClasses(userId, previousClasses);
+        formerClassmates.forEach(candidateFeedService::markDirty);
+        deckCacheService.invalidateAll(formerClassmates);
+    }
+}
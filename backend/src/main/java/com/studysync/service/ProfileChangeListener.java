@@ -0,0 +1,88 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the matching indexes in step with profile edits. Runs after the saving
+ * transaction commits (or straight away when there is none), on the saving
+ * thread, but only the user's own index entries and cached deck are updated
+ * there. Saves that leave every scoring field unchanged stop at that point;
+ * otherwise the pairs the user can appear in (users sharing an old or new
+ * class) are handed to {@link ProfileChangeFanOut} to be rescored in the
+ * background, with their feeds queued for a rebuild and their cached decks
+ * dropped.
+ *
+ * Edits to users of another node's shard are passed on to that node. If the
+ * edit moved the user out of this node's shards, the index updates drop them
+ * here and their former classmates' feeds are rebuilt without them, also in
+ * the background.
+ */
+@Component
+public class ProfileChangeListener {
+
+    private final ClassIndexService classIndexService;
+    private final MatchFeatureService matchFeatureService;
+    private final ProfileChangeFanOut profileChangeFanOut;
+    private final DeckCacheService deckCacheService;
+    private final SimilarStudentService similarStudentService;
+    private final ClassSetLshService classSetLshService;
+    private final AttributeIndexService attributeIndexService;
+    private final ShardRouter shardRouter;
+    private final ShardForwarder shardForwarder;
+
+    public ProfileChangeListener(ClassIndexService classIndexService,
+            MatchFeatureService matchFeatureService,
+            ProfileChangeFanOut profileChangeFanOut,
+            DeckCacheService deckCacheService,
+            SimilarStudentService similarStudentService,
+            ClassSetLshService classSetLshService,
+            AttributeIndexService attributeIndexService,
+            ShardRouter shardRouter,
+            ShardForwarder shardForwarder) {
+        this.classIndexService = classIndexService;
+        this.matchFeatureService = matchFeatureService;
+        this.profileChangeFanOut = profileChangeFanOut;
+        this.deckCacheService = deckCacheService;
+        this.similarStudentService = similarStudentService;
+        this.classSetLshService = classSetLshService;
+        this.attributeIndexService = attributeIndexService;
+        this.shardRouter = shardRouter;
+        this.shardForwarder = shardForwarder;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(ProfileChangedEvent event) {
+        User user = event.getUser();
+        if (user == null || user.getId() == null) {
+            return;
+        }
+
+        MatchFeatures previous = matchFeatureService.getFeatures(user.getId());
+        Set<String> previousClasses = classIndexService.updateUser(user);
+        matchFeatureService.updateUser(user);
+        similarStudentService.updateUser(user);
+        classSetLshService.updateUser(user);
+        attributeIndexService.updateUser(user);
+        MatchFeatures current = matchFeatureService.getFeatures(user.getId());
+        deckCacheService.invalidate(user.getId());
+
+        if (!shardRouter.isLocal(user)) {
+            shardForwarder.notifyProfileChanged(shardRouter.ownerOf(user), user.getId());
+            profileChangeFanOut.dropFromClassmates(user.getId(), previousClasses);
+            return;
+        }
+
+        if (previous != null && current != null && previous.sameProfile(current)) {
+            return;
+        }
+
+        Set<String> affectedClasses = new HashSet<>(previousClasses);
+        affectedClasses.addAll(classIndexService.getIndexedClasses(user.getId()));
+        profileChangeFanOut.rescoreClassmates(user.getId(), affectedClasses);
+    }
+}
@@ -0,0 +1,20 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+
+/**
+ * Published after a user's profile is saved. Listeners refresh the matching
+ * indexes and cached scores that depend on profile fields.
+ */
+public class ProfileChangedEvent {
+
+    private final User user;
+
+    public ProfileChangedEvent(User user) {
+        this.user = user;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
@@ -0,0 +1,46 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+/**
+ * The most recently active users, so decks keep some people who are likely to
+ * swipe back soon. Relevance halves every {@code half-life-hours} of inactivity.
+ */
+@Component
+@Order(70)
+public class RecentlyActiveSource implements CandidateSource {
+
+    private final AttributeIndexService attributeIndexService;
+
+    @Value("${matching.recall.recent.limit:50}")
+    private int limit;
+
+    @Value("${matching.recall.recent.half-life-hours:72}")
+    private double halfLifeHours;
+
+    public RecentlyActiveSource(AttributeIndexService attributeIndexService) {
+        this.attributeIndexService = attributeIndexService;
+    }
+
+    @Override
+    public String getName() {
+        return "recent";
+    }
+
+    @Override
+    public Iterator<Candidate> candidates(Long userId, Collection<String> classes, LongPredicate excluded) {
+        long now = System.currentTimeMillis();
+        double halfLifeMillis = TimeUnit.HOURS.toMillis(1) * halfLifeHours;
+        return CandidateSource.lazily(attributeIndexService.mostRecentlyActive(), limit,
+                activity -> activity.getUserId() == userId || excluded.test(activity.getUserId()) ? null
+                        : new Candidate(activity.getUserId(), ATTRIBUTE_WEIGHT
+                                * Math.pow(0.5, Math.max(0L, now - activity.getMillis()) / halfLifeMillis)));
+    }
+}
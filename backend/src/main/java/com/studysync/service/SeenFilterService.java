@@ -0,0 +1,165 @@
+package com.studysync.service;
+
+import com.studysync.model.enums.MatchStatus;
+import com.studysync.repository.MatchRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Per-user set of candidates that must not appear in the deck again: users they
+ * already swiped on, and users who rejected or matched them. Backed by the
+ * matches table and held as a sorted array of user ids, so memory grows with the
+ * user's swipes rather than with the largest user id, and a check is a binary
+ * search.
+ *
+ * A pending like from someone else does not hide them; the requester still
+ * needs to see that person to make the match mutual.
+ */
+@Service
+public class SeenFilterService {
+
+    private final MatchRepository matchRepository;
+    private final DeckCacheService deckCacheService;
+    private final CandidateFeedService candidateFeedService;
+    private final Map<Long, SeenIds> seenByUser;
+
+    // The feed service reads seen sets while building feeds, hence the lazy proxy
+    public SeenFilterService(MatchRepository matchRepository,
+            DeckCacheService deckCacheService,
+            @Lazy CandidateFeedService candidateFeedService,
+            @Value("${matching.seen.cache-size:10000}") int cacheSize) {
+        this.matchRepository = matchRepository;
+        this.deckCacheService = deckCacheService;
+        this.candidateFeedService = candidateFeedService;
+        this.seenByUser = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SeenIds> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Predicate that is true for candidates the user has already dealt with.
+     */
+    public LongPredicate seenBy(Long userId) {
+        return load(userId)::contains;
+    }
+
+    /**
+     * Seen predicates for many users at once, for batch jobs. Users without a
+     * cached set are loaded with a single query and are not added to the cache,
+     * so a pass over the whole population does not evict the sets of users who
+     * are online.
+     */
+    public Map<Long, LongPredicate> seenByAll(Collection<Long> userIds) {
+        Map<Long, SeenIds> seenSets = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long userId : userIds) {
+            SeenIds cached = seenByUser.get(userId);
+            if (cached != null) {
+                seenSets.put(userId, cached);
+            } else {
+                seenSets.put(userId, new SeenIds());
+                missing.add(userId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // Same rule as findSeenPartnerIds: the swiper always, the target once decided
+            for (Object[] row : matchRepository.findPairsInvolving(missing)) {
+                Long user1Id = (Long) row[0];
+                Long user2Id = (Long) row[1];
+                MatchStatus status = (MatchStatus) row[2];
+                if (missing.contains(user1Id)) {
+                    seenSets.get(user1Id).add(user2Id);
+                }
+                if (missing.contains(user2Id) && status != MatchStatus.PENDING) {
+                    seenSets.get(user2Id).add(user1Id);
+                }
+            }
+        }
+
+        Map<Long, LongPredicate> predicates = new HashMap<>();
+        seenSets.forEach((userId, seen) -> predicates.put(userId, seen::contains));
+        return predicates;
+    }
+
+    /**
+     * Records a swipe. The swiper never sees the target again; once the pair is
+     * decided (rejected or matched) the target stops seeing the swiper too. Cached
+     * decks of whoever is affected are dropped and their materialized feeds queued
+     * for a rebuild, so swiping through a feed does not leave an empty deck until
+     * the nightly precompute.
+     */
+    public void recordSwipe(Long swiperId, Long targetId, MatchStatus status) {
+        markIfLoaded(swiperId, targetId);
+        deckCacheService.invalidate(swiperId);
+        candidateFeedService.markDirty(swiperId);
+        if (status != MatchStatus.PENDING) {
+            markIfLoaded(targetId, swiperId);
+            deckCacheService.invalidate(targetId);
+            candidateFeedService.markDirty(targetId);
+        }
+    }
+
+    private void markIfLoaded(Long userId, Long candidateId) {
+        // Users without a cached set pick the swipe up from the matches table the
+        // next time they are loaded
+        SeenIds seen = seenByUser.get(userId);
+        if (seen != null) {
+            seen.add(candidateId);
+        }
+    }
+
+    private SeenIds load(Long userId) {
+        SeenIds cached = seenByUser.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        SeenIds seen = new SeenIds();
+        for (Long partnerId : matchRepository.findSeenPartnerIds(userId, MatchStatus.PENDING)) {
+            seen.add(partnerId);
+        }
+        SeenIds raced = seenByUser.putIfAbsent(userId, seen);
+        return raced != null ? raced : seen;
+    }
+
+    /**
+     * Sorted, distinct user ids. Swipes are rare next to deck reads, so an insert
+     * shifts the array and a lookup is a binary search.
+     */
+    private static final class SeenIds {
+        private long[] ids = new long[8];
+        private int size;
+
+        synchronized void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        synchronized boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
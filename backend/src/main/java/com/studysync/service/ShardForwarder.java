@@ -0,0 +1,111 @@
+package com.studysync.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+
+/**
+ * Sends matching requests for users of another shard to the node that owns it,
+ * and tells the owner about profile edits saved on this node so its indexes
+ * stay current. Forwarded requests carry {@link ShardRouter#FORWARDED_HEADER}
+ * and are always served by the receiver, so a disagreement between two nodes'
+ * configurations cannot bounce a request back and forth.
+ */
+@Service
+public class ShardForwarder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardForwarder.class);
+
+    private final ShardRouter shardRouter;
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${matching.shard.forward-timeout-ms:5000}")
+    private long forwardTimeoutMs;
+
+    public ShardForwarder(ShardRouter shardRouter, WebClient.Builder webClientBuilder,
+            @Value("${matching.shard.secret:}") String secret,
+            MeterRegistry meterRegistry) {
+        if (shardRouter.isSharded() && secret.isBlank()) {
+            throw new IllegalStateException("matching.shard.secret must be set when matching.shard.nodes lists "
+                    + "more than one node");
+        }
+        this.shardRouter = shardRouter;
+        this.webClient = webClientBuilder.clone()
+                .defaultHeader(ShardRouter.FORWARDED_HEADER, String.valueOf(shardRouter.getNodeId()))
+                .defaultHeader(ShardRouter.SECRET_HEADER, secret)
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Replays the request on the owner node and returns its response as is.
+     *
+     * @param pathAndQuery path on the owner, including any query string
+     * @param body         request body, or null for none
+     */
+    public ResponseEntity<String> forward(int node, HttpMethod method, String pathAndQuery, Object body) {
+        forwardedCounter(node).increment();
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(shardRouter.getNodeUrl(node) + pathAndQuery)
+                .accept(MediaType.APPLICATION_JSON);
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+        }
+        try {
+            ResponseEntity<String> response = request.retrieve()
+                    .toEntity(String.class)
+                    .block(Duration.ofMillis(forwardTimeoutMs));
+            return copyOf(response);
+        } catch (WebClientResponseException ex) {
+            return ResponseEntity.status(ex.getStatusCode())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(ex.getResponseBodyAsString());
+        }
+    }
+
+    /**
+     * Asks the owner node to reload the user and refresh its indexes. Fire and
+     * forget: a lost notification is repaired by the owner's next rebuild.
+     */
+    public void notifyProfileChanged(int node, Long userId) {
+        forwardedCounter(node).increment();
+        webClient.post()
+                .uri(shardRouter.getNodeUrl(node) + "/api/matching/shard/profile-changed/" + userId)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(forwardTimeoutMs))
+                .subscribe(response -> {
+                }, ex -> LOGGER.warn("Could not notify node {} of profile change for user {}: {}",
+                        node, userId, ex.getMessage()));
+    }
+
+    private Counter forwardedCounter(int node) {
+        return Counter.builder("matching.shard.forwarded")
+                .description("Requests sent to the node owning the user's shard")
+                .tag("node", String.valueOf(node))
+                .register(meterRegistry);
+    }
+
+    private static ResponseEntity<String> copyOf(ResponseEntity<String> response) {
+        if (response == null) {
+            return ResponseEntity.status(504).build();
+        }
+        HttpHeaders headers = new HttpHeaders();
+        if (response.getHeaders().getContentType() != null) {
+            headers.setContentType(response.getHeaders().getContentType());
+        }
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+}
@@ -0,0 +1,153 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Partitions the matching engine across nodes. Every user has a shard key, the
+ * university email domain or a coarse geo cell, and each shard key is owned by
+ * exactly one of the configured nodes. A node only loads its own shards into the
+ * in-memory indexes, so memory per node stays flat as campuses are added, and
+ * requests for users of other shards are forwarded to the owner by
+ * {@link ShardForwarder}.
+ *
+ * Owners are picked by rendezvous hashing: adding a node only moves the shards
+ * that the new node wins. With no nodes configured there is a single node that
+ * owns everything.
+ */
+@Service
+public class ShardRouter {
+
+    public static final String KEY_EMAIL_DOMAIN = "email-domain";
+    public static final String KEY_GEO_CELL = "geo-cell";
+
+    // Set on forwarded requests so the receiver serves them instead of forwarding again
+    public static final String FORWARDED_HEADER = "X-StudySync-Forwarded";
+    // Shared secret authenticating forwarded requests on the owner node
+    public static final String SECRET_HEADER = "X-StudySync-Shard-Secret";
+
+    private static final String DEFAULT_KEY = "default";
+
+    private final int nodeId;
+    private final List<String> nodes;
+    private final String keyStrategy;
+    private final double geoCellDegrees;
+
+    public ShardRouter(@Value("${matching.shard.node-id:0}") int nodeId,
+            @Value("${matching.shard.nodes:}") String nodes,
+            @Value("${matching.shard.key:" + KEY_EMAIL_DOMAIN + "}") String keyStrategy,
+            @Value("${matching.shard.geo-cell-degrees:1.0}") double geoCellDegrees) {
+        this.nodes = Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .map(node -> node.endsWith("/") ? node.substring(0, node.length() - 1) : node)
+                .toList();
+        if (!this.nodes.isEmpty() && (nodeId < 0 || nodeId >= this.nodes.size())) {
+            throw new IllegalStateException("matching.shard.node-id " + nodeId + " is not one of the "
+                    + this.nodes.size() + " nodes in matching.shard.nodes");
+        }
+        if (!KEY_EMAIL_DOMAIN.equals(keyStrategy) && !KEY_GEO_CELL.equals(keyStrategy)) {
+            throw new IllegalStateException("Unknown matching.shard.key: " + keyStrategy);
+        }
+        this.nodeId = nodeId;
+        this.keyStrategy = keyStrategy;
+        this.geoCellDegrees = geoCellDegrees;
+    }
+
+    public boolean isSharded() {
+        return nodes.size() > 1;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public String getNodeUrl(int node) {
+        return nodes.get(node);
+    }
+
+    /**
+     * Shard key for a user's current email and coordinates. Users without
+     * coordinates fall back to their email domain under the geo cell strategy.
+     */
+    public String shardKeyOf(String email, Double latitude, Double longitude) {
+        if (KEY_GEO_CELL.equals(keyStrategy) && latitude != null && longitude != null) {
+            long latCell = (long) Math.floor(latitude / geoCellDegrees);
+            long lngCell = (long) Math.floor(longitude / geoCellDegrees);
+            return "geo:" + latCell + ":" + lngCell;
+        }
+        if (email != null) {
+            int at = email.lastIndexOf('@');
+            if (at >= 0 && at < email.length() - 1) {
+                return email.substring(at + 1).trim().toLowerCase(Locale.ROOT);
+            }
+        }
+        return DEFAULT_KEY;
+    }
+
+    public String shardKeyOf(User user) {
+        if (user.getShardKey() != null) {
+            return user.getShardKey();
+        }
+        return shardKeyOf(user.getEmail(), user.getLatitude(), user.getLongitude());
+    }
+
+    /**
+     * Index of the node that owns the shard key.
+     */
+    public int ownerOf(String shardKey) {
+        if (!isSharded()) {
+            return nodeId;
+        }
+        long keyHash = mix(shardKey.hashCode() * 0x9E3779B97F4A7C15L);
+        int owner = 0;
+        long best = Long.MIN_VALUE;
+        for (int node = 0; node < nodes.size(); node++) {
+            long weight = mix(keyHash + node * 0xC2B2AE3D27D4EB4FL);
+            if (weight > best) {
+                best = weight;
+                owner = node;
+            }
+        }
+        return owner;
+    }
+
+    public int ownerOf(User user) {
+        return ownerOf(shardKeyOf(user));
+    }
+
+    public boolean isLocal(String shardKey) {
+        return ownerOf(shardKey) == nodeId;
+    }
+
+    public boolean isLocal(User user) {
+        return isLocal(shardKeyOf(user));
+    }
+
+    /**
+     * The shard keys among those given that this node owns.
+     */
+    public List<String> localShardKeys(Collection<String> shardKeys) {
+        List<String> local = new ArrayList<>();
+        for (String shardKey : shardKeys) {
+            if (isLocal(shardKey)) {
+                local.add(shardKey);
+            }
+        }
+        return local;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,54 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * Classmates from the class index, most shared classes first. Skipped when the
+ * requester's classes hold more than {@code exact-recall-limit} students; the
+ * LSH source stands in for it then.
+ */
+@Component
+@Order(10)
+public class SharedClassesSource implements CandidateSource {
+
+    private final ClassIndexService classIndexService;
+
+    @Value("${matching.recall.classes.limit:1000}")
+    private int limit;
+
+    @Value("${matching.lsh.exact-recall-limit:5000}")
+    private int exactRecallLimit;
+
+    public SharedClassesSource(ClassIndexService classIndexService) {
+        this.classIndexService = classIndexService;
+    }
+
+    @Override
+    public String getName() {
+        return "classes";
+    }
+
+    @Override
+    public Iterator<Candidate> candidates(Long userId, Collection<String> classes, LongPredicate excluded) {
+        if (classes == null || classes.isEmpty() || classIndexService.countClassMembers(classes) > exactRecallLimit) {
+            return Collections.emptyIterator();
+        }
+        double classCount = classes.size();
+        List<Candidate> ranked = classIndexService.countSharedClasses(userId, classes).entrySet().stream()
+                .filter(entry -> !excluded.test(entry.getKey()))
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .map(entry -> new Candidate(entry.getKey(), Math.min(1.0, entry.getValue() / classCount)))
+                .toList();
+        return ranked.iterator();
+    }
+}
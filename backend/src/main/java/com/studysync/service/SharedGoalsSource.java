@@ -0,0 +1,86 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Users sharing the most of the requester's study goals. The attribute index
+ * groups users by their exact goal set and campuses use only a handful of goals,
+ * so ranking happens over the few distinct goal sets; their members are then
+ * read lazily, one group at a time.
+ */
+@Component
+@Order(50)
+public class SharedGoalsSource implements CandidateSource {
+
+    private final AttributeIndexService attributeIndexService;
+
+    @Value("${matching.recall.goals.limit:200}")
+    private int limit;
+
+    public SharedGoalsSource(AttributeIndexService attributeIndexService) {
+        this.attributeIndexService = attributeIndexService;
+    }
+
+    @Override
+    public String getName() {
+        return "goals";
+    }
+
+    @Override
+    public Iterator<Candidate> candidates(Long userId, Collection<String> classes, LongPredicate excluded) {
+        AttributeIndexService.Attributes requester = attributeIndexService.getAttributes(userId);
+        if (requester == null || requester.getGoalMask() == 0L) {
+            return Collections.emptyIterator();
+        }
+        long goals = requester.getGoalMask();
+        double goalCount = Long.bitCount(goals);
+
+        List<Map.Entry<Set<Long>, Double>> groups = new ArrayList<>();
+        for (Map.Entry<Long, Set<Long>> group : attributeIndexService.getUsersByGoalMask().entrySet()) {
+            int shared = Long.bitCount(group.getKey() & goals);
+            if (shared > 0) {
+                groups.add(Map.entry(group.getValue(), ATTRIBUTE_WEIGHT * shared / goalCount));
+            }
+        }
+        groups.sort(Map.Entry.<Set<Long>, Double>comparingByValue(Comparator.reverseOrder()));
+
+        Iterator<Map.Entry<Set<Long>, Double>> remainingGroups = groups.iterator();
+        Iterator<Candidate> members = new Iterator<>() {
+            private Iterator<Long> group = Collections.emptyIterator();
+            private double relevance;
+
+            @Override
+            public boolean hasNext() {
+                while (!group.hasNext() && remainingGroups.hasNext()) {
+                    Map.Entry<Set<Long>, Double> next = remainingGroups.next();
+                    group = next.getKey().iterator();
+                    relevance = next.getValue();
+                }
+                return group.hasNext();
+            }
+
+            @Override
+            public Candidate next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new Candidate(group.next(), relevance);
+            }
+        };
+        return CandidateSource.lazily(members, limit, candidate -> candidate.getUserId() == userId
+                || excluded.test(candidate.getUserId()) ? null : candidate);
+    }
+}
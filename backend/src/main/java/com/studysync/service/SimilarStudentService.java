@@ -0,0 +1,130 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+import com.studysync.repository.UserRepository;
+import com.studysync.util.HnswIndex;
+import com.studysync.util.ProfileEmbedding;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+/**
+ * "Similar students" candidate source: every active, completed profile is
+ * embedded with {@link ProfileEmbedding} and kept in an in-process
+ * {@link HnswIndex}, so users with a similar major, goals, style and bio can be
+ * recalled even when they share no class. The index is built in the background
+ * on start and kept current by {@link ProfileChangeListener}.
+ */
+@Service
+public class SimilarStudentService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimilarStudentService.class);
+
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final HnswIndex index;
+    private final Timer queryDuration;
+
+    @Value("${matching.similar.ef-search:64}")
+    private int efSearch;
+
+    public SimilarStudentService(UserRepository userRepository,
+            ShardRouter shardRouter,
+            @Qualifier("matchingTaskScheduler") ThreadPoolTaskScheduler taskScheduler,
+            @Value("${matching.similar.m:16}") int m,
+            @Value("${matching.similar.ef-construction:100}") int efConstruction,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.taskScheduler = taskScheduler;
+        this.index = new HnswIndex(ProfileEmbedding.DIMENSIONS, m, efConstruction, 42L);
+
+        Gauge.builder("matching.similar.index.size", index, HnswIndex::size)
+                .description("Profiles in the similar-students index")
+                .register(meterRegistry);
+        this.queryDuration = Timer.builder("matching.similar.query.duration")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(5)
+    public void bootstrap() {
+        taskScheduler.execute(this::build);
+    }
+
+    void build() {
+        long start = System.nanoTime();
+        int added = 0;
+        List<String> shardKeys = shardRouter.localShardKeys(userRepository.findShardKeys());
+        List<User> users = shardKeys.isEmpty() ? List.of()
+                : userRepository.findByProfileCompletedTrueAndShardKeyIn(shardKeys);
+        for (User user : users) {
+            // Profiles edited while the build runs were already inserted by the
+            // listener with newer data than this snapshot
+            if (user.isActive() && index.insertIfAbsent(user.getId(), embed(user))) {
+                added++;
+            }
+        }
+        LOGGER.info("Similar-students index built for {} users in {} ms", added,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Re-embeds a user after a profile edit, or drops them once they are no
+     * longer matchable or have moved to another node's shard.
+     */
+    public void updateUser(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        if (user.isProfileCompleted() && user.isActive() && shardRouter.isLocal(user)) {
+            index.insert(user.getId(), embed(user));
+        } else {
+            index.remove(user.getId());
+        }
+    }
+
+    /**
+     * Up to {@code k} users whose profile vector is closest to the user's, with
+     * their cosine similarity, most similar first, skipping the user and anyone
+     * excluded. Empty if the user is not indexed.
+     */
+    public Map<Long, Double> findSimilar(Long userId, int k, LongPredicate excluded) {
+        float[] vector = index.vector(userId);
+        if (vector == null || k <= 0) {
+            return Map.of();
+        }
+        long start = System.nanoTime();
+        List<HnswIndex.Neighbor> neighbors = index.search(vector, k, Math.max(efSearch, k),
+                id -> id == userId || excluded.test(id));
+        queryDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        Map<Long, Double> similar = new LinkedHashMap<>();
+        for (HnswIndex.Neighbor neighbor : neighbors) {
+            similar.put(neighbor.getId(), neighbor.getSimilarity());
+        }
+        return similar;
+    }
+
+    private static float[] embed(User user) {
+        return ProfileEmbedding.embed(user.getMajor(), user.getClasses(), user.getGoals(),
+                user.getStudyStyle() != null ? user.getStudyStyle().name() : null, user.getBio());
+    }
+}
@@ -0,0 +1,39 @@
+package com.studysync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.LongPredicate;
+
+/**
+ * Nearest profiles in the similar-students HNSW index, by cosine similarity of
+ * the profile embeddings.
+ */
+@Component
+@Order(30)
+public class SimilarStudentsSource implements CandidateSource {
+
+    private final SimilarStudentService similarStudentService;
+
+    @Value("${matching.similar.recall-size:50}")
+    private int limit;
+
+    public SimilarStudentsSource(SimilarStudentService similarStudentService) {
+        this.similarStudentService = similarStudentService;
+    }
+
+    @Override
+    public String getName() {
+        return "similar";
+    }
+
+    @Override
+    public Iterator<Candidate> candidates(Long userId, Collection<String> classes, LongPredicate excluded) {
+        return similarStudentService.findSimilar(userId, limit, excluded).entrySet().stream()
+                .map(entry -> new Candidate(entry.getKey(), Math.max(0.0, Math.min(1.0, entry.getValue()))))
+                .iterator();
+    }
+}
@@ -0,0 +1,449 @@
+package com.studysync.service;
+
+import com.studysync.dto.StudyGroupDto;
+import com.studysync.model.StudyGroup;
+import com.studysync.model.User;
+import com.studysync.repository.StudyGroupRepository;
+import com.studysync.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Forms study groups for users who prefer studying in groups. Candidates are
+ * partitioned by class and each partition is clustered independently on a
+ * fork/join pool. Within a partition users are sorted by study style, goals and
+ * latitude, so similar users sit next to each other, and groups are grown greedily
+ * from a seed using only the next {@code window} unassigned users. A run is
+ * therefore O(memberships x window x group size) and needs no pairwise matrix.
+ *
+ * Results replace the study_groups table as a whole; reads only touch that table.
+ */
+@Service
+public class StudyGroupService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StudyGroupService.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private static final String INSERT_GROUP = "INSERT INTO study_groups (class_code, cohesion_score, computed_at, "
+            + "node_id) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_MEMBER = "INSERT INTO study_group_members (group_id, user_id) VALUES (?, ?)";
+
+    // Users next to each other in this order are likely to score well together
+    private static final Comparator<MatchFeatures> CLUSTER_ORDER = Comparator
+            .comparingInt(MatchFeatures::getStudyStyle)
+            .thenComparingLong(MatchFeatures::getGoalMask)
+            .thenComparingDouble(MatchFeatures::getLatitude);
+
+    private final UserRepository userRepository;
+    private final StudyGroupRepository studyGroupRepository;
+    private final ClassIndexService classIndexService;
+    private final MatchFeatureService matchFeatureService;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskScheduler taskScheduler;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastGroupCount = new AtomicLong();
+    private final AtomicLong lastUserCount = new AtomicLong();
+    private final Timer runDuration;
+
+    @Value("${matching.groups.size:4}")
+    private int groupSize;
+
+    @Value("${matching.groups.min-size:3}")
+    private int minGroupSize;
+
+    @Value("${matching.groups.window:64}")
+    private int window;
+
+    @Value("${matching.groups.chunk-size:2048}")
+    private int chunkSize;
+
+    @Value("${matching.groups.parallelism:0}")
+    private int parallelism;
+
+    public StudyGroupService(UserRepository userRepository,
+            StudyGroupRepository studyGroupRepository,
+            ClassIndexService classIndexService,
+            MatchFeatureService matchFeatureService,
+            ShardRouter shardRouter,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("matchingTaskScheduler") ThreadPoolTaskScheduler taskScheduler,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.studyGroupRepository = studyGroupRepository;
+        this.classIndexService = classIndexService;
+        this.matchFeatureService = matchFeatureService;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskScheduler = taskScheduler;
+
+        Gauge.builder("matching.groups.count", lastGroupCount, AtomicLong::get)
+                .description("Study groups produced by the last formation run")
+                .register(meterRegistry);
+        Gauge.builder("matching.groups.users", lastUserCount, AtomicLong::get)
+                .description("Group-preferring users considered by the last formation run")
+                .register(meterRegistry);
+        this.runDuration = Timer.builder("matching.groups.run.duration")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds groups in the background on first start, once the class index and
+     * feature vectors are ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(20)
+    public void bootstrap() {
+        if (studyGroupRepository.countByNodeId(shardRouter.getNodeId()) == 0) {
+            taskScheduler.execute(this::formGroups);
+        }
+    }
+
+    @Scheduled(cron = "${matching.groups.cron:0 30 3 * * *}")
+    public void formGroups() {
+        if (!running.compareAndSet(false, true)) {
+            LOGGER.info("Study group formation already running, skipping");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            List<String> shardKeys = shardRouter.localShardKeys(userRepository.findShardKeys());
+            List<Long> seekerIds = shardKeys.isEmpty() ? List.of() : userRepository.findGroupSeekerIds(shardKeys);
+            List<Partition> partitions = partitionByClass(seekerIds);
+
+            int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            List<FormedGroup> groups;
+            try {
+                groups = pool.invoke(new PartitionTask(partitions, 0, partitions.size()));
+            } finally {
+                pool.shutdown();
+            }
+
+            transactionTemplate.executeWithoutResult(status -> replaceGroups(groups));
+
+            lastGroupCount.set(groups.size());
+            lastUserCount.set(seekerIds.size());
+            LOGGER.info("Formed {} study groups from {} users across {} classes in {} ms", groups.size(),
+                    seekerIds.size(), partitions.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception ex) {
+            LOGGER.error("Study group formation failed: {}", ex.getMessage(), ex);
+        } finally {
+            runDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+    }
+
+    /**
+     * Precomputed groups the user belongs to, most cohesive first.
+     */
+    @Transactional(readOnly = true)
+    public List<StudyGroupDto> getGroupsForUser(Long userId) {
+        List<StudyGroup> groups = studyGroupRepository.findByMember(userId);
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> memberIds = groups.stream()
+                .flatMap(group -> group.getMemberIds().stream())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : userRepository.findAllById(memberIds)) {
+            usersById.put(user.getId(), user);
+        }
+
+        List<StudyGroupDto> result = new ArrayList<>(groups.size());
+        for (StudyGroup group : groups) {
+            List<StudyGroupDto.Member> members = group.getMemberIds().stream()
+                    .map(usersById::get)
+                    .filter(member -> member != null)
+                    .map(this::toMember)
+                    .collect(Collectors.toList());
+            result.add(new StudyGroupDto(group.getId(), group.getClassCode(),
+                    (int) Math.round(group.getCohesionScore() * 100),
+                    group.getComputedAt() != null ? group.getComputedAt().format(DATE_FORMATTER) : null,
+                    members));
+        }
+        return result;
+    }
+
+    private StudyGroupDto.Member toMember(User user) {
+        String name = (user.getFirstName() != null ? user.getFirstName() : "")
+                + (user.getLastName() != null ? " " + user.getLastName() : "");
+        name = name.trim().isEmpty() ? user.getUsername() : name.trim();
+        return new StudyGroupDto.Member(user.getId(), name, user.getMajor(), user.getStudyYear(),
+                user.getStudyStyle() != null ? user.getStudyStyle().name() : null, user.getProfilePictureUrl());
+    }
+
+    private List<Partition> partitionByClass(List<Long> seekerIds) {
+        Map<String, List<MatchFeatures>> byClass = new HashMap<>();
+        for (Long userId : seekerIds) {
+            MatchFeatures features = matchFeatureService.getFeatures(userId);
+            if (features == null) {
+                continue;
+            }
+            for (String classCode : classIndexService.getIndexedClasses(userId)) {
+                byClass.computeIfAbsent(classCode, k -> new ArrayList<>()).add(features);
+            }
+        }
+
+        List<Partition> partitions = new ArrayList<>(byClass.size());
+        byClass.forEach((classCode, members) -> {
+            if (members.size() >= minGroupSize) {
+                partitions.add(new Partition(classCode, members.toArray(new MatchFeatures[0])));
+            }
+        });
+        return partitions;
+    }
+
+    /**
+     * Greedy windowed clustering of one sorted slice of a class partition.
+     */
+    private List<FormedGroup> formGroups(String classCode, MatchFeatures[] sorted, int from, int to) {
+        List<FormedGroup> groups = new ArrayList<>();
+        boolean[] assigned = new boolean[to - from];
+        int[] candidates = new int[window];
+        int[] members = new int[groupSize];
+
+        for (int seed = from; seed < to; seed++) {
+            if (assigned[seed - from]) {
+                continue;
+            }
+            assigned[seed - from] = true;
+
+            int candidateCount = 0;
+            for (int next = seed + 1; next < to && candidateCount < window; next++) {
+                if (!assigned[next - from]) {
+                    candidates[candidateCount++] = next;
+                }
+            }
+
+            members[0] = seed;
+            int size = 1;
+            while (size < groupSize) {
+                int best = -1;
+                double bestScore = -1.0;
+                for (int c = 0; c < candidateCount; c++) {
+                    int candidate = candidates[c];
+                    if (candidate < 0) {
+                        continue;
+                    }
+                    double score = 0.0;
+                    for (int m = 0; m < size; m++) {
+                        score += matchFeatureService.score(sorted[candidate], sorted[members[m]]);
+                    }
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = c;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                members[size++] = candidates[best];
+                candidates[best] = -1;
+            }
+
+            // Seeds that cannot fill a group stay ungrouped; their would-be
+            // members remain available to later seeds
+            if (size < minGroupSize) {
+                continue;
+            }
+            long[] memberIds = new long[size];
+            for (int m = 0; m < size; m++) {
+                assigned[members[m] - from] = true;
+                memberIds[m] = sorted[members[m]].getUserId();
+            }
+            groups.add(new FormedGroup(classCode, memberIds, cohesion(sorted, members, size)));
+        }
+        return groups;
+    }
+
+    private double cohesion(MatchFeatures[] sorted, int[] members, int size) {
+        double total = 0.0;
+        int pairs = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                total += matchFeatureService.score(sorted[members[i]], sorted[members[j]]);
+                pairs++;
+            }
+        }
+        return pairs > 0 ? total / pairs : 0.0;
+    }
+
+    private void replaceGroups(List<FormedGroup> groups) {
+        // Groups without a node predate sharding and are replaced by whichever node runs first
+        int nodeId = shardRouter.getNodeId();
+        jdbcTemplate.update("DELETE FROM study_group_members WHERE group_id IN "
+                + "(SELECT id FROM study_groups WHERE node_id = ? OR node_id IS NULL)", nodeId);
+        jdbcTemplate.update("DELETE FROM study_groups WHERE node_id = ? OR node_id IS NULL", nodeId);
+
+        Timestamp computedAt = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < groups.size(); from += WRITE_BATCH_SIZE) {
+            List<FormedGroup> batch = groups.subList(from, Math.min(groups.size(), from + WRITE_BATCH_SIZE));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_GROUP, new String[] { "id" }),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setString(1, batch.get(i).classCode);
+                            ps.setDouble(2, batch.get(i).cohesion);
+                            ps.setTimestamp(3, computedAt);
+                            ps.setInt(4, nodeId);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    }, keyHolder);
+
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            List<Object[]> memberRows = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                long groupId = ((Number) keys.get(i).values().iterator().next()).longValue();
+                for (long userId : batch.get(i).memberIds) {
+                    memberRows.add(new Object[] { groupId, userId });
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_MEMBER, memberRows);
+        }
+    }
+
+    /**
+     * Splits the partition list in halves down to single partitions. Partitions
+     * larger than the chunk size are sorted once and then clustered chunk by
+     * chunk in parallel.
+     */
+    @SuppressWarnings("serial") // never serialized; RecursiveTask is Serializable only by inheritance
+    private final class PartitionTask extends RecursiveTask<List<FormedGroup>> {
+        private final List<Partition> partitions;
+        private final int from;
+        private final int to;
+
+        private PartitionTask(List<Partition> partitions, int from, int to) {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<FormedGroup> compute() {
+            if (to - from == 0) {
+                return List.of();
+            }
+            if (to - from == 1) {
+                return formPartition(partitions.get(from));
+            }
+            int mid = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(partitions, from, mid);
+            left.fork();
+            List<FormedGroup> result = new ArrayList<>(new PartitionTask(partitions, mid, to).compute());
+            result.addAll(left.join());
+            return result;
+        }
+
+        private List<FormedGroup> formPartition(Partition partition) {
+            MatchFeatures[] sorted = partition.members;
+            Arrays.sort(sorted, CLUSTER_ORDER);
+            if (sorted.length <= chunkSize) {
+                return formGroups(partition.classCode, sorted, 0, sorted.length);
+            }
+
+            List<ChunkTask> chunks = new ArrayList<>();
+            for (int start = 0; start < sorted.length; start += chunkSize) {
+                chunks.add(new ChunkTask(partition.classCode, sorted, start, Math.min(sorted.length, start + chunkSize)));
+            }
+            List<FormedGroup> result = new ArrayList<>();
+            for (ChunkTask chunk : invokeAll(chunks)) {
+                result.addAll(chunk.join());
+            }
+            return result;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class ChunkTask extends RecursiveTask<List<FormedGroup>> {
+        private final String classCode;
+        private final MatchFeatures[] sorted;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(String classCode, MatchFeatures[] sorted, int from, int to) {
+            this.classCode = classCode;
+            this.sorted = sorted;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<FormedGroup> compute() {
+            return formGroups(classCode, sorted, from, to);
+        }
+    }
+
+    private static final class Partition {
+        private final String classCode;
+        private final MatchFeatures[] members;
+
+        private Partition(String classCode, MatchFeatures[] members) {
+            this.classCode = classCode;
+            this.members = members;
+        }
+    }
+
+    private static final class FormedGroup {
+        private final String classCode;
+        private final long[] memberIds;
+        private final double cohesion;
+
+        private FormedGroup(String classCode, long[] memberIds, double cohesion) {
+            this.classCode = classCode;
+            this.memberIds = memberIds;
+            this.cohesion = cohesion;
+        }
+    }
+}
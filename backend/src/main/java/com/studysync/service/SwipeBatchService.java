@@ -0,0 +1,286 @@
+package com.studysync.service;
+
+import com.studysync.dto.BatchSwipeRequest;
+import com.studysync.dto.SwipeResultDto;
+import com.studysync.model.Match;
+import com.studysync.model.User;
+import com.studysync.model.enums.MatchStatus;
+import com.studysync.repository.MatchRepository;
+import com.studysync.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Applies a burst of swipes from one user in a single transaction: every user is
+ * loaded with one query, existing pairs with another, and the resulting inserts
+ * and status changes go out as JDBC batches. Hibernate cannot batch inserts for
+ * the identity-keyed matches table, hence plain JDBC for the writes.
+ *
+ * Outcomes follow the single-swipe path in {@link MatchingService}, and the same
+ * pair locks and conditional updates keep concurrent swipes race free.
+ */
+@Service
+public class SwipeBatchService {
+
+    private static final String INSERT_MATCH = "INSERT INTO matches "
+            + "(user1_id, user2_id, pair_key, compatibility_score, status, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SHARED_CLASS = "INSERT INTO match_shared_classes (match_id, class_code) VALUES (?, ?)";
+    private static final String UPDATE_STATUS = "UPDATE matches SET status = ?, matched_at = ? WHERE id = ? AND status = ?";
+
+    private final UserRepository userRepository;
+    private final MatchRepository matchRepository;
+    private final MatchFeatureService matchFeatureService;
+    private final SeenFilterService seenFilterService;
+    private final PairLockService pairLockService;
+    private final PairScoreCache pairScoreCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AttributeIndexService attributeIndexService;
+
+    @Value("${matching.swipe.batch.max-size:100}")
+    private int maxBatchSize;
+
+    public SwipeBatchService(UserRepository userRepository,
+            MatchRepository matchRepository,
+            MatchFeatureService matchFeatureService,
+            SeenFilterService seenFilterService,
+            PairLockService pairLockService,
+            PairScoreCache pairScoreCache,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            AttributeIndexService attributeIndexService) {
+        this.userRepository = userRepository;
+        this.matchRepository = matchRepository;
+        this.matchFeatureService = matchFeatureService;
+        this.seenFilterService = seenFilterService;
+        this.pairLockService = pairLockService;
+        this.pairScoreCache = pairScoreCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.attributeIndexService = attributeIndexService;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Processes the swipes in order and returns one result per swipe. When the
+     * same target appears more than once the last swipe wins. Returns null if the
+     * swiping user does not exist.
+     */
+    public List<SwipeResultDto> processSwipes(Long userId, List<BatchSwipeRequest.Swipe> swipes) {
+        attributeIndexService.recordActivity(userId);
+        Map<Long, Boolean> likedByTarget = new LinkedHashMap<>();
+        for (BatchSwipeRequest.Swipe swipe : swipes) {
+            if (swipe != null && swipe.getTargetUserId() != null && !swipe.getTargetUserId().equals(userId)) {
+                likedByTarget.put(swipe.getTargetUserId(), swipe.isLiked());
+            }
+        }
+
+        List<Long> pairKeys = new ArrayList<>(likedByTarget.size());
+        for (Long targetId : likedByTarget.keySet()) {
+            pairKeys.add(Match.pairKey(userId, targetId));
+        }
+        Map<Long, SwipeOutcome> outcomes = pairLockService.executeLocked(pairKeys, transactionTemplate,
+                status -> applySwipes(userId, likedByTarget));
+        if (outcomes == null) {
+            return null;
+        }
+
+        List<SwipeResultDto> results = new ArrayList<>(swipes.size());
+        for (BatchSwipeRequest.Swipe swipe : swipes) {
+            Long targetId = swipe != null ? swipe.getTargetUserId() : null;
+            SwipeOutcome outcome = targetId != null ? outcomes.get(targetId) : null;
+            if (targetId != null && targetId.equals(userId)) {
+                results.add(SwipeResultDto.failed(targetId, "Cannot swipe on yourself"));
+            } else if (outcome == null) {
+                results.add(SwipeResultDto.failed(targetId, "User not found"));
+            } else {
+                boolean isMatch = outcome.status == MatchStatus.MATCHED;
+                results.add(new SwipeResultDto(targetId, true, outcome.status, isMatch, outcome.matchId,
+                        isMatch ? "It's a match! You can now chat." : null));
+            }
+        }
+
+        // Only after commit, so a rolled back batch never hides anyone from a deck
+        outcomes.forEach((targetId, outcome) -> seenFilterService.recordSwipe(userId, targetId, outcome.status));
+        return results;
+    }
+
+    private Map<Long, SwipeOutcome> applySwipes(Long userId, Map<Long, Boolean> likedByTarget) {
+        Set<Long> ids = new TreeSet<>(likedByTarget.keySet());
+        ids.add(userId);
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : userRepository.findByIdIn(ids)) {
+            usersById.put(user.getId(), user);
+        }
+        User swiper = usersById.get(userId);
+        if (swiper == null) {
+            return null;
+        }
+
+        Map<Long, Match> existingByPartner = new HashMap<>();
+        if (!likedByTarget.isEmpty()) {
+            for (Match match : matchRepository.findBetweenUserAndPartners(userId, likedByTarget.keySet())) {
+                Long partnerId = match.getUser1().getId().equals(userId) ? match.getUser2().getId()
+                        : match.getUser1().getId();
+                existingByPartner.put(partnerId, match);
+            }
+        }
+
+        Map<Long, SwipeOutcome> outcomes = new LinkedHashMap<>();
+        List<NewMatch> inserts = new ArrayList<>();
+        List<SwipeOutcome> updates = new ArrayList<>();
+        MatchFeatures swiperFeatures = featuresOf(swiper);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Map.Entry<Long, Boolean> swipe : likedByTarget.entrySet()) {
+            User target = usersById.get(swipe.getKey());
+            if (target == null) {
+                continue;
+            }
+            boolean liked = swipe.getValue();
+            Match existing = existingByPartner.get(target.getId());
+
+            if (existing != null) {
+                SwipeOutcome outcome = new SwipeOutcome(existing.getId(), existing.getStatus(), existing.getMatchedAt());
+                boolean completesMatch = liked && existing.getStatus() == MatchStatus.PENDING
+                        && existing.getUser2().getId().equals(userId);
+                if (completesMatch) {
+                    outcome = new SwipeOutcome(existing.getId(), MatchStatus.MATCHED, now);
+                    outcome.previousStatus = existing.getStatus();
+                    updates.add(outcome);
+                } else if (!liked && existing.getStatus() != MatchStatus.REJECTED) {
+                    outcome = new SwipeOutcome(existing.getId(), MatchStatus.REJECTED, existing.getMatchedAt());
+                    outcome.previousStatus = existing.getStatus();
+                    updates.add(outcome);
+                }
+                outcomes.put(target.getId(), outcome);
+                continue;
+            }
+
+            Set<String> sharedClasses = new TreeSet<>(swiper.getClasses());
+            sharedClasses.retainAll(target.getClasses());
+            int compatibilityScore = (int) Math.round(pairScoreCache.score(swiperFeatures, featuresOf(target)) * 100);
+            NewMatch insert = new NewMatch(target.getId(), compatibilityScore, new ArrayList<>(sharedClasses),
+                    liked ? MatchStatus.PENDING : MatchStatus.REJECTED);
+            inserts.add(insert);
+            outcomes.put(target.getId(), insert.outcome);
+        }
+
+        insertMatches(userId, inserts, now);
+        updateStatuses(updates);
+        return outcomes;
+    }
+
+    private void insertMatches(Long userId, List<NewMatch> inserts, LocalDateTime now) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        Timestamp createdAt = Timestamp.valueOf(now);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_MATCH, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        NewMatch insert = inserts.get(i);
+                        ps.setLong(1, userId);
+                        ps.setLong(2, insert.targetId);
+                        ps.setLong(3, Match.pairKey(userId, insert.targetId));
+                        ps.setInt(4, insert.compatibilityScore);
+                        ps.setString(5, insert.outcome.status.name());
+                        ps.setTimestamp(6, createdAt);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return inserts.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> sharedClassRows = new ArrayList<>();
+        for (int i = 0; i < inserts.size(); i++) {
+            NewMatch insert = inserts.get(i);
+            insert.outcome.matchId = ((Number) keys.get(i).values().iterator().next()).longValue();
+            for (String classCode : insert.sharedClasses) {
+                sharedClassRows.add(new Object[] { insert.outcome.matchId, classCode });
+            }
+        }
+        if (!sharedClassRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SHARED_CLASS, sharedClassRows);
+        }
+    }
+
+    private void updateStatuses(List<SwipeOutcome> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(updates.size());
+        for (SwipeOutcome update : updates) {
+            rows.add(new Object[] { update.status.name(),
+                    update.matchedAt != null ? Timestamp.valueOf(update.matchedAt) : null, update.matchId,
+                    update.previousStatus.name() });
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS, rows);
+        for (int i = 0; i < counts.length; i++) {
+            // Drivers may report SUCCESS_NO_INFO (negative) instead of a row count
+            if (counts[i] == 0) {
+                throw new OptimisticLockingFailureException(
+                        "Match " + updates.get(i).matchId + " changed concurrently");
+            }
+        }
+    }
+
+    private MatchFeatures featuresOf(User user) {
+        MatchFeatures features = matchFeatureService.getFeatures(user.getId());
+        return features != null ? features : matchFeatureService.encode(user);
+    }
+
+    private static final class SwipeOutcome {
+        private Long matchId;
+        private MatchStatus previousStatus;
+        private final MatchStatus status;
+        private final LocalDateTime matchedAt;
+
+        private SwipeOutcome(Long matchId, MatchStatus status, LocalDateTime matchedAt) {
+            this.matchId = matchId;
+            this.status = status;
+            this.matchedAt = matchedAt;
+        }
+    }
+
+    private static final class NewMatch {
+        private final Long targetId;
+        private final int compatibilityScore;
+        private final List<String> sharedClasses;
+        private final SwipeOutcome outcome;
+
+        private NewMatch(Long targetId, int compatibilityScore, List<String> sharedClasses, MatchStatus status) {
+            this.targetId = targetId;
+            this.compatibilityScore = compatibilityScore;
+            this.sharedClasses = sharedClasses;
+            this.outcome = new SwipeOutcome(null, status, null);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.studysync.service;
 import com.studysync.model.User;
 import com.studysync.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -18,11 +19,14 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public User findOrCreateUser(String email, String name, String profilePicture) {
         System.out.println("UserService.findOrCreateUser called with email: " + email + ", name: " + name);
 
         try {
-            Optional<User> existingUser = userRepository.findByEmail(email);
+            Optional<User> existingUser = userRepository.findDetailedByEmail(email);
 
             if (existingUser.isPresent()) {
                 System.out.println("Found existing user: " + existingUser.get().getId());
@@ -81,15 +85,18 @@ public class UserService {
     }
 
     public User findByEmail(String email) {
-        return userRepository.findByEmail(email).orElse(null);
+        return userRepository.findDetailedByEmail(email).orElse(null);
     }
 
     public User findById(Long id) {
-        return userRepository.findById(id).orElse(null);
+        return userRepository.findDetailedById(id).orElse(null);
     }
 
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        // Profile edits (e.g. the complete-profile endpoint) can change scoring fields
+        eventPublisher.publishEvent(new ProfileChangedEvent(savedUser));
+        return savedUser;
     }
 
     public List<User> findUsersByMajorAndYear(String major, Integer year) {
@@ -119,7 +126,7 @@ public class UserService {
         System.out.println("Authenticating user with email: " + email);
 
         try {
-            Optional<User> userOpt = userRepository.findByEmail(email);
+            Optional<User> userOpt = userRepository.findDetailedByEmail(email);
             if (userOpt.isPresent()) {
                 User user = userOpt.get();
                 if (user.getPassword() != null && passwordEncoder.matches(password, user.getPassword())) {
@@ -0,0 +1,471 @@
+package com.studysync.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Approximate nearest-neighbour index over unit-length vectors, using a
+ * hierarchical navigable small world graph (Malkov and Yashunin). Each vector is
+ * a node on a random number of layers; a search descends greedily through the
+ * sparse upper layers and then does a best-first search of width {@code ef} on
+ * layer 0, so it visits O(ef x log n) nodes instead of all of them.
+ *
+ * Distance is 1 - dot product, which is cosine distance for normalized vectors.
+ * Inserts and removals are incremental: a removed node's neighbours are relinked
+ * among themselves, and links other nodes still hold to it are skipped and
+ * dropped the next time their lists are rebuilt.
+ *
+ * Thread safe. Searches share a read lock; inserts and removals take the write
+ * lock.
+ */
+public final class HnswIndex {
+
+    private static final int MAX_LEVEL = 16;
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(c -> c.distance);
+    private static final Comparator<Candidate> FARTHEST_FIRST = NEAREST_FIRST.reversed();
+
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final SplittableRandom random;
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node entryPoint;
+    // Visit stamp for searches under the write lock, which can mark nodes in
+    // place instead of allocating a visited set
+    private int writerEpoch;
+
+    /**
+     * @param m links per node on the upper layers (twice that on layer 0)
+     * @param efConstruction search width used to find the links of a new node
+     */
+    public HnswIndex(int dimensions, int m, int efConstruction, long seed) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1.0 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The stored vector for the id, or null. Callers must not modify it.
+     */
+    public float[] vector(long id) {
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(id);
+            return node != null ? node.vector : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the vector, replacing any vector already stored for the id.
+     */
+    public void insert(long id, float[] vector) {
+        checkDimensions(vector);
+        lock.writeLock().lock();
+        try {
+            removeNode(id);
+            addNode(id, vector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the vector unless the id is already present.
+     */
+    public boolean insertIfAbsent(long id, float[] vector) {
+        checkDimensions(vector);
+        lock.writeLock().lock();
+        try {
+            if (nodes.containsKey(id)) {
+                return false;
+            }
+            addNode(id, vector);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeNode(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code k} nearest stored vectors, nearest first. Excluded ids are
+     * still traversed but never returned. A larger {@code ef} trades latency for
+     * recall.
+     */
+    public List<Neighbor> search(float[] query, int k, int ef, LongPredicate excluded) {
+        checkDimensions(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint == null || k <= 0) {
+                return List.of();
+            }
+            Node entry = entryPoint;
+            for (int level = entry.level; level > 0; level--) {
+                entry = greedyClosest(query, entry, level);
+            }
+            List<Candidate> entries = List.of(new Candidate(entry, distance(query, entry.vector)));
+            List<Candidate> found = searchLayer(query, entries, Math.max(ef, k), 0, excluded, false);
+
+            List<Neighbor> result = new ArrayList<>(Math.min(k, found.size()));
+            for (int i = 0; i < found.size() && result.size() < k; i++) {
+                Candidate candidate = found.get(i);
+                result.add(new Neighbor(candidate.node.id, 1.0 - candidate.distance));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addNode(long id, float[] vector) {
+        int level = randomLevel();
+        Node node = new Node(id, vector, level, m);
+        nodes.put(id, node);
+        if (entryPoint == null) {
+            entryPoint = node;
+            return;
+        }
+
+        Node entry = entryPoint;
+        for (int l = entry.level; l > level; l--) {
+            entry = greedyClosest(vector, entry, l);
+        }
+
+        List<Candidate> entries = List.of(new Candidate(entry, distance(vector, entry.vector)));
+        for (int l = Math.min(level, entryPoint.level); l >= 0; l--) {
+            List<Candidate> found = searchLayer(vector, entries, efConstruction, l, null, true);
+            List<Node> selected = selectNeighbors(vector, found, m);
+            node.setLinks(l, selected);
+            for (Node neighbor : selected) {
+                link(neighbor, node, l);
+            }
+            entries = found;
+        }
+
+        if (level > entryPoint.level) {
+            entryPoint = node;
+        }
+    }
+
+    private boolean removeNode(long id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        node.deleted = true;
+
+        // Relink each neighbour from its remaining links plus the removed node's
+        // other neighbours, so the graph around the hole stays connected
+        for (int l = 0; l <= node.level; l++) {
+            for (int i = 0; i < node.linkCounts[l]; i++) {
+                Node neighbor = node.links[l][i];
+                if (neighbor.deleted) {
+                    continue;
+                }
+                Set<Node> pool = new LinkedHashSet<>();
+                for (int j = 0; j < neighbor.linkCounts[l]; j++) {
+                    pool.add(neighbor.links[l][j]);
+                }
+                for (int j = 0; j < node.linkCounts[l]; j++) {
+                    pool.add(node.links[l][j]);
+                }
+                pool.remove(neighbor);
+                neighbor.setLinks(l, selectNeighbors(neighbor.vector, candidatesFor(neighbor.vector, pool),
+                        maxLinks(l)));
+            }
+        }
+
+        if (entryPoint == node) {
+            entryPoint = null;
+            for (Node candidate : nodes.values()) {
+                if (entryPoint == null || candidate.level > entryPoint.level) {
+                    entryPoint = candidate;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void link(Node from, Node to, int level) {
+        if (from.linkCounts[level] < maxLinks(level)) {
+            from.links[level][from.linkCounts[level]++] = to;
+            return;
+        }
+        Set<Node> pool = new LinkedHashSet<>();
+        for (int i = 0; i < from.linkCounts[level]; i++) {
+            pool.add(from.links[level][i]);
+        }
+        pool.add(to);
+        from.setLinks(level, selectNeighbors(from.vector, candidatesFor(from.vector, pool), maxLinks(level)));
+    }
+
+    private Node greedyClosest(float[] query, Node entry, int level) {
+        Node best = entry;
+        double bestDistance = distance(query, entry.vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < best.linkCounts[level]; i++) {
+                Node neighbor = best.links[level][i];
+                if (neighbor.deleted) {
+                    continue;
+                }
+                double d = distance(query, neighbor.vector);
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search of one layer. Returns up to {@code ef} accepted nodes,
+     * nearest first. {@code writer} is set when the caller holds the write lock.
+     */
+    private List<Candidate> searchLayer(float[] query, List<Candidate> entries, int ef, int level,
+            LongPredicate excluded, boolean writer) {
+        Visited visited = writer ? new MarkVisited(++writerEpoch) : new SetVisited();
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(FARTHEST_FIRST);
+
+        for (Candidate entry : entries) {
+            if (entry.node.deleted || !visited.add(entry.node)) {
+                continue;
+            }
+            frontier.add(entry);
+            if (excluded == null || !excluded.test(entry.node.id)) {
+                results.add(entry);
+            }
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (results.size() >= ef && current.distance > results.peek().distance) {
+                break;
+            }
+            Node node = current.node;
+            for (int i = 0; i < node.linkCounts[level]; i++) {
+                Node neighbor = node.links[level][i];
+                if (neighbor.deleted || !visited.add(neighbor)) {
+                    continue;
+                }
+                double d = distance(query, neighbor.vector);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    frontier.add(candidate);
+                    if (excluded == null || !excluded.test(neighbor.id)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort(NEAREST_FIRST);
+        return ordered;
+    }
+
+    /**
+     * Neighbour selection heuristic: walking candidates nearest first, a node is
+     * kept only if it is closer to the base than to every node already kept,
+     * which spreads links across directions. Leftover slots are filled with the
+     * nearest rejected candidates.
+     */
+    private List<Node> selectNeighbors(float[] base, List<Candidate> nearestFirst, int max) {
+        List<Node> selected = new ArrayList<>(max);
+        List<Node> rejected = new ArrayList<>();
+        for (Candidate candidate : nearestFirst) {
+            if (selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Node kept : selected) {
+                if (distance(candidate.node.vector, kept.vector) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.node);
+            } else {
+                rejected.add(candidate.node);
+            }
+        }
+        for (int i = 0; i < rejected.size() && selected.size() < max; i++) {
+            selected.add(rejected.get(i));
+        }
+        return selected;
+    }
+
+    private List<Candidate> candidatesFor(float[] base, Set<Node> pool) {
+        List<Candidate> candidates = new ArrayList<>(pool.size());
+        for (Node node : pool) {
+            if (!node.deleted) {
+                candidates.add(new Candidate(node, distance(base, node.vector)));
+            }
+        }
+        candidates.sort(NEAREST_FIRST);
+        return candidates;
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int randomLevel() {
+        double level = -Math.log(1.0 - random.nextDouble()) * levelFactor;
+        return Math.min(MAX_LEVEL, (int) level);
+    }
+
+    private void checkDimensions(float[] vector) {
+        if (vector == null || vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions");
+        }
+    }
+
+    private static double distance(float[] a, float[] b) {
+        float dot = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return 1.0 - dot;
+    }
+
+    private static final class Node {
+        private final long id;
+        private final float[] vector;
+        private final int level;
+        private final Node[][] links;
+        private final int[] linkCounts;
+        private volatile boolean deleted;
+        private int visitedEpoch;
+
+        private Node(long id, float[] vector, int level, int m) {
+            this.id = id;
+            this.vector = vector;
+            this.level = level;
+            this.links = new Node[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new Node[l == 0 ? 2 * m : m];
+            }
+        }
+
+        private void setLinks(int level, List<Node> neighbors) {
+            Node[] target = links[level];
+            int count = Math.min(neighbors.size(), target.length);
+            for (int i = 0; i < count; i++) {
+                target[i] = neighbors.get(i);
+            }
+            for (int i = count; i < linkCounts[level]; i++) {
+                target[i] = null;
+            }
+            linkCounts[level] = count;
+        }
+    }
+
+    private interface Visited {
+        // True the first time a node is seen
+        boolean add(Node node);
+    }
+
+    private static final class SetVisited implements Visited {
+        private final Set<Node> nodes = new HashSet<>();
+
+        @Override
+        public boolean add(Node node) {
+            return nodes.add(node);
+        }
+    }
+
+    private static final class MarkVisited implements Visited {
+        private final int epoch;
+
+        private MarkVisited(int epoch) {
+            this.epoch = epoch;
+        }
+
+        @Override
+        public boolean add(Node node) {
+            if (node.visitedEpoch == epoch) {
+                return false;
+            }
+            node.visitedEpoch = epoch;
+            return true;
+        }
+    }
+
+    private static final class Candidate {
+        private final Node node;
+        private final double distance;
+
+        private Candidate(Node node, double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * A search hit: the stored id and its cosine similarity to the query.
+     */
+    public static final class Neighbor {
+        private final long id;
+        private final double similarity;
+
+        public Neighbor(long id, double similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.studysync.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Locality-sensitive hashing for Jaccard similarity of token sets. Each set gets
+ * a MinHash signature of {@code bands x rows} values; the signature is cut into
+ * bands and every band is hashed to a bucket. Two sets land in a common bucket
+ * with probability 1 - (1 - J^rows)^bands, so high-Jaccard pairs are found by
+ * looking only at the querying set's buckets, never at the whole population.
+ *
+ * Candidates from the buckets are re-ranked by their exact Jaccard, computed from
+ * the stored token hashes. {@link #exact} does the same over every stored set,
+ * for benchmarking the approximation.
+ *
+ * Reads are lock free; writes are serialized.
+ */
+public final class MinHashLsh {
+
+    private final int bands;
+    private final int rows;
+    private final long[] multipliers;
+    private final long[] offsets;
+    private final List<Map<Long, Set<Long>>> buckets;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public MinHashLsh(int bands, int rows, long seed) {
+        this.bands = bands;
+        this.rows = rows;
+        SplittableRandom random = new SplittableRandom(seed);
+        this.multipliers = new long[bands * rows];
+        this.offsets = new long[bands * rows];
+        for (int i = 0; i < multipliers.length; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            offsets[i] = random.nextLong();
+        }
+        this.buckets = new ArrayList<>(bands);
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Sorted, distinct 64-bit hashes of the tokens, the form stored per id.
+     */
+    public static long[] hashTokens(Collection<String> tokens) {
+        return tokens.stream()
+                .mapToLong(token -> mix(token.hashCode() * 0x9E3779B97F4A7C15L + token.length()))
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Stores or replaces the token set for the id. An empty set removes it.
+     */
+    public synchronized void put(long id, long[] tokenHashes) {
+        remove(id);
+        if (tokenHashes.length == 0) {
+            return;
+        }
+        Entry entry = new Entry(tokenHashes, signature(tokenHashes));
+        entries.put(id, entry);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(entry.bandKeys[band], key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    public synchronized boolean remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        for (int band = 0; band < bands; band++) {
+            Set<Long> bucket = buckets.get(band).get(entry.bandKeys[band]);
+            if (bucket != null) {
+                bucket.remove(id);
+                if (bucket.isEmpty()) {
+                    buckets.get(band).remove(entry.bandKeys[band], bucket);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Up to {@code k} ids sharing a bucket with the id, by exact Jaccard, highest
+     * first. At most {@code maxCandidates} bucket members are examined, split
+     * evenly across the bands, so a few very popular buckets (everyone in a big
+     * lecture hall) cannot crowd out the rest or make a query slow.
+     */
+    public Map<Long, Double> query(long id, int k, int maxCandidates, LongPredicate excluded) {
+        Entry entry = entries.get(id);
+        if (entry == null || k <= 0) {
+            return Map.of();
+        }
+        int perBand = Math.max(1, maxCandidates / bands);
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            Set<Long> bucket = buckets.get(band).get(entry.bandKeys[band]);
+            if (bucket == null) {
+                continue;
+            }
+            int taken = 0;
+            for (Long candidate : bucket) {
+                if (taken >= perBand) {
+                    break;
+                }
+                if (candidate != id && !excluded.test(candidate) && candidates.add(candidate)) {
+                    taken++;
+                }
+            }
+        }
+        return topByJaccard(entry, candidates, k);
+    }
+
+    /**
+     * Exact top {@code k} by Jaccard over every stored set; a full scan.
+     */
+    public Map<Long, Double> exact(long id, int k, LongPredicate excluded) {
+        Entry entry = entries.get(id);
+        if (entry == null || k <= 0) {
+            return Map.of();
+        }
+        List<Long> candidates = new ArrayList<>();
+        for (Long candidate : entries.keySet()) {
+            if (candidate != id && !excluded.test(candidate)) {
+                candidates.add(candidate);
+            }
+        }
+        return topByJaccard(entry, candidates, k);
+    }
+
+    public static double jaccard(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 0.0 : (double) shared / union;
+    }
+
+    private Map<Long, Double> topByJaccard(Entry entry, Collection<Long> candidates, int k) {
+        List<Map.Entry<Long, Double>> scored = new ArrayList<>();
+        for (Long candidate : candidates) {
+            Entry other = entries.get(candidate);
+            if (other != null) {
+                double similarity = jaccard(entry.tokenHashes, other.tokenHashes);
+                if (similarity > 0.0) {
+                    scored.add(Map.entry(candidate, similarity));
+                }
+            }
+        }
+        scored.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+
+        Map<Long, Double> top = new LinkedHashMap<>();
+        for (int i = 0; i < scored.size() && i < k; i++) {
+            top.put(scored.get(i).getKey(), scored.get(i).getValue());
+        }
+        return top;
+    }
+
+    private long[] signature(long[] tokenHashes) {
+        long[] minimums = new long[bands * rows];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        for (long token : tokenHashes) {
+            for (int i = 0; i < minimums.length; i++) {
+                long value = mix(token * multipliers[i] + offsets[i]);
+                if (value < minimums[i]) {
+                    minimums[i] = value;
+                }
+            }
+        }
+
+        long[] bandKeys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = mix(key * 31 + minimums[band * rows + row]);
+            }
+            bandKeys[band] = key;
+        }
+        return bandKeys;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Entry {
+        private final long[] tokenHashes;
+        private final long[] bandKeys;
+
+        private Entry(long[] tokenHashes, long[] bandKeys) {
+            this.tokenHashes = tokenHashes;
+            this.bandKeys = bandKeys;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.studysync.util;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a profile into a fixed-length unit vector without any model call, by
+ * feature hashing: every token (major, each class, each goal, study style and
+ * each distinct bio word) is hashed to one of {@link #DIMENSIONS} slots with a
+ * random sign and added with its field weight. Cosine similarity between two
+ * vectors then approximates the weighted overlap of their tokens.
+ */
+public final class ProfileEmbedding {
+
+    public static final int DIMENSIONS = 64;
+
+    private static final float MAJOR_WEIGHT = 1.5f;
+    private static final float CLASS_WEIGHT = 1.0f;
+    private static final float GOAL_WEIGHT = 0.75f;
+    private static final float STYLE_WEIGHT = 0.75f;
+    private static final float BIO_WEIGHT = 0.35f;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> STOP_WORDS = Set.of("the", "and", "for", "with", "that", "this", "are",
+            "you", "have", "like", "love", "study", "studying", "student", "looking", "want", "who", "from");
+
+    private ProfileEmbedding() {
+    }
+
+    public static float[] embed(String major, Collection<String> classes, Collection<String> goals,
+            String studyStyle, String bio) {
+        float[] vector = new float[DIMENSIONS];
+        if (major != null && !major.isBlank()) {
+            add(vector, "major:" + major.trim().toLowerCase(Locale.ROOT), MAJOR_WEIGHT);
+        }
+        if (classes != null) {
+            for (String classCode : classes) {
+                if (classCode != null) {
+                    add(vector, "class:" + classCode.trim().toUpperCase(Locale.ROOT), CLASS_WEIGHT);
+                }
+            }
+        }
+        if (goals != null) {
+            for (String goal : goals) {
+                if (goal != null) {
+                    add(vector, "goal:" + goal, GOAL_WEIGHT);
+                }
+            }
+        }
+        if (studyStyle != null) {
+            add(vector, "style:" + studyStyle, STYLE_WEIGHT);
+        }
+        if (bio != null) {
+            NON_WORD.splitAsStream(bio.toLowerCase(Locale.ROOT))
+                    .filter(word -> word.length() > 2 && !STOP_WORDS.contains(word))
+                    .distinct()
+                    .forEach(word -> add(vector, "bio:" + word, BIO_WEIGHT));
+        }
+        normalize(vector);
+        return vector;
+    }
+
+    private static void add(float[] vector, String token, float weight) {
+        int hash = mix(token.hashCode());
+        int slot = (hash >>> 1) % DIMENSIONS;
+        vector[slot] += (hash & 1) == 0 ? weight : -weight;
+    }
+
+    private static void normalize(float[] vector) {
+        double norm = 0.0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0.0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+
+    // MurmurHash3 finalizer; String.hashCode alone leaves similar tokens in
+    // neighbouring slots
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,182 @@
+package com.studysync.util;
+
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Weekly availability as a bitmap of quarter hours: 7 days x 96 slots = 672 bits
+ * in 11 longs, Monday 00:00 first. Overlap between two schedules is an AND and a
+ * popcount per word.
+ *
+ * Parses the formats found in {@code User.availability}: JSON such as
+ * {@code {"Monday":["09:00-11:00"]}}, the same map in {@code Map.toString()} form
+ * ({@code {Monday=[8:00 AM, 2:00 PM]}}), and single start times, which count as
+ * one hour.
+ */
+public final class WeeklyAvailability {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+    public static final int WORDS = (SLOTS_PER_WEEK + 63) >>> 6;
+
+    private static final long[] EMPTY = new long[WORDS];
+
+    private static final Pattern DAY_ENTRY = Pattern.compile(
+            "(monday|tuesday|wednesday|thursday|friday|saturday|sunday)\"?\\s*[:=]\\s*\\[([^\\]]*)\\]",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern TIME = Pattern.compile("(\\d{1,2})(?::(\\d{2}))?\\s*([AaPp][Mm])?");
+
+    private WeeklyAvailability() {
+    }
+
+    /**
+     * Parses an availability string. Unknown or malformed entries are skipped;
+     * null or empty input gives an empty bitmap.
+     */
+    public static long[] parse(String availability) {
+        if (availability == null || availability.isBlank()) {
+            return EMPTY;
+        }
+        long[] bits = new long[WORDS];
+        Matcher day = DAY_ENTRY.matcher(availability);
+        while (day.find()) {
+            int dayIndex = DayOfWeek.valueOf(day.group(1).toUpperCase(Locale.ROOT)).getValue() - 1;
+            for (String entry : day.group(2).split(",")) {
+                addEntry(bits, dayIndex, entry.replace("\"", "").trim());
+            }
+        }
+        return bits;
+    }
+
+    public static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int slotCount(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public static int overlapSlots(long[] a, long[] b) {
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    public static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = a[i] & b[i];
+        }
+        return result;
+    }
+
+    /**
+     * True if every quarter hour in [startMinute, endMinute) of the day is set.
+     */
+    public static boolean covers(long[] bits, DayOfWeek day, int startMinute, int endMinute) {
+        int base = (day.getValue() - 1) * SLOTS_PER_DAY;
+        int from = startMinute / SLOT_MINUTES;
+        int to = Math.min(SLOTS_PER_DAY, (endMinute + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        for (int slot = from; slot < to; slot++) {
+            if (!get(bits, base + slot)) {
+                return false;
+            }
+        }
+        return from < to;
+    }
+
+    /**
+     * Contiguous windows in the bitmap, e.g. "Monday 14:00 - 16:00".
+     */
+    public static List<String> describe(long[] bits) {
+        List<String> windows = new ArrayList<>();
+        for (int day = 0; day < 7; day++) {
+            String dayName = DayOfWeek.of(day + 1).getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+            int base = day * SLOTS_PER_DAY;
+            int slot = 0;
+            while (slot < SLOTS_PER_DAY) {
+                if (!get(bits, base + slot)) {
+                    slot++;
+                    continue;
+                }
+                int start = slot;
+                while (slot < SLOTS_PER_DAY && get(bits, base + slot)) {
+                    slot++;
+                }
+                windows.add(dayName + " " + formatMinutes(start * SLOT_MINUTES) + " - "
+                        + formatMinutes(slot * SLOT_MINUTES));
+            }
+        }
+        return windows;
+    }
+
+    private static void addEntry(long[] bits, int dayIndex, String entry) {
+        if (entry.isEmpty()) {
+            return;
+        }
+        int dash = entry.indexOf('-');
+        int start;
+        int end;
+        if (dash >= 0) {
+            start = parseMinutes(entry.substring(0, dash));
+            end = parseMinutes(entry.substring(dash + 1));
+        } else {
+            start = parseMinutes(entry);
+            end = start >= 0 ? start + 60 : -1;
+        }
+        if (start < 0 || end <= start) {
+            return;
+        }
+
+        int base = dayIndex * SLOTS_PER_DAY;
+        int from = start / SLOT_MINUTES;
+        int to = Math.min(SLOTS_PER_DAY, (end + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        for (int slot = from; slot < to; slot++) {
+            int bit = base + slot;
+            bits[bit >>> 6] |= 1L << (bit & 63);
+        }
+    }
+
+    private static int parseMinutes(String text) {
+        Matcher matcher = TIME.matcher(text.trim());
+        if (!matcher.matches()) {
+            return -1;
+        }
+        int hours = Integer.parseInt(matcher.group(1));
+        int minutes = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+        String meridiem = matcher.group(3);
+        if (meridiem != null) {
+            if (hours < 1 || hours > 12) {
+                return -1;
+            }
+            hours = hours % 12 + (meridiem.equalsIgnoreCase("pm") ? 12 : 0);
+        }
+        int total = hours * 60 + minutes;
+        return minutes < 60 && total <= 24 * 60 ? total : -1;
+    }
+
+    private static boolean get(long[] bits, int bit) {
+        return (bits[bit >>> 6] & (1L << (bit & 63))) != 0;
+    }
+
+    private static String formatMinutes(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+}
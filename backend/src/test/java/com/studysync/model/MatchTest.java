@@ -0,0 +1,29 @@
+package com.studysync.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MatchTest {
+
+    private static final long MAX_ID = (1L << 32) - 1;
+
+    @Test
+    void pairKeyIsTheSameWhoeverSwipedFirst() {
+        assertThat(Match.pairKey(7, 42)).isEqualTo(Match.pairKey(42, 7));
+        assertThat(Match.pairKey(MAX_ID, 1)).isEqualTo(Match.pairKey(1, MAX_ID));
+        assertThat(Match.pairKey(1, MAX_ID)).isNotEqualTo(Match.pairKey(MAX_ID - 1, MAX_ID));
+    }
+
+    @Test
+    void pairKeyRejectsIdsThatWouldCollide() {
+        // (2, 2^32 + 5) would have packed onto the key of (3, 5)
+        assertThatThrownBy(() -> Match.pairKey(2, MAX_ID + 6))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Match.pairKey(MAX_ID + 1, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Match.pairKey(-1, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,66 @@
+package com.studysync.service;
+
+import com.studysync.model.User;
+import com.studysync.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MatchFeatureServiceTest {
+
+    private static final int GOALS = 70;
+
+    private MatchFeatureService matchFeatureService;
+
+    @BeforeEach
+    void setUp() {
+        matchFeatureService = new MatchFeatureService(mock(UserRepository.class), mock(LocationService.class),
+                mock(ShardRouter.class));
+        // Goal i gets dictionary id i
+        for (int i = 0; i < GOALS; i++) {
+            matchFeatureService.encode(user(i, "Goal " + i));
+        }
+    }
+
+    @Test
+    void goalsPastTheSixtyFourthKeepTheirOwnBit() {
+        MatchFeatures early = matchFeatureService.encode(user(1, "Goal 3"));
+        MatchFeatures late = matchFeatureService.encode(user(2, "Goal 67"));
+        MatchFeatures alsoLate = matchFeatureService.encode(user(3, "Goal 67"));
+
+        // 67 and 3 share the low six bits, so a folded mask would call these shared
+        assertThat(early.sharesGoal(late)).isFalse();
+        assertThat(late.sharesGoal(early)).isFalse();
+        assertThat(late.sharesGoal(alsoLate)).isTrue();
+        assertThat(matchFeatureService.score(early, late)).isEqualTo(0.1);
+        assertThat(matchFeatureService.score(late, alsoLate)).isEqualTo(0.2);
+    }
+
+    @Test
+    void vectorsFromDifferentDictionarySizesCompareByContent() {
+        MatchFeatures before = matchFeatureService.encode(user(1, "Goal 3"));
+        for (int i = GOALS; i < 3 * 64; i++) {
+            matchFeatureService.encode(user(i, "Goal " + i));
+        }
+        MatchFeatures after = matchFeatureService.encode(user(1, "Goal 3"));
+        MatchFeatures newest = matchFeatureService.encode(user(2, "Goal 150"));
+
+        assertThat(before.sameProfile(after)).isTrue();
+        assertThat(before.sharesGoal(after)).isTrue();
+        assertThat(newest.sameProfile(before)).isFalse();
+        assertThat(newest.sharesGoal(before)).isFalse();
+    }
+
+    private static User user(long id, String goal) {
+        User user = new User();
+        user.setId(id);
+        user.setProfileCompleted(true);
+        user.setGoals(new HashSet<>(Set.of(goal)));
+        return user;
+    }
+}
@@ -0,0 +1,174 @@
+package com.studysync.service;
+
+import com.studysync.dto.DeckPageDto;
+import com.studysync.dto.MatchCandidateDto;
+import com.studysync.model.User;
+import com.studysync.repository.ChatMessageRepository;
+import com.studysync.repository.MatchRepository;
+import com.studysync.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The deck only materializes what it returns: User rows for the ranked slice
+ * being served, and DTOs, shared sets, summaries and distances for the
+ * candidates that make the deck.
+ */
+class MatchingServiceDeckTest {
+
+    private static final long REQUESTER_ID = 1L;
+    private static final int RANKED = 40;
+    private static final int SHORTLIST = 24;
+    private static final int DECK_SIZE = 12;
+
+    private UserRepository userRepository;
+    private LocationService locationService;
+    private CandidateRanker candidateRanker;
+    private MatchingService matchingService;
+    private final Map<Long, User> loadedUsers = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        locationService = mock(LocationService.class);
+        candidateRanker = mock(CandidateRanker.class);
+        CandidateFeedService candidateFeedService = mock(CandidateFeedService.class);
+        SeenFilterService seenFilterService = mock(SeenFilterService.class);
+        GeminiAiService geminiAiService = mock(GeminiAiService.class);
+        MatchFeatureService matchFeatureService = mock(MatchFeatureService.class);
+
+        User requester = user(REQUESTER_ID);
+        when(userRepository.findWithProfileById(REQUESTER_ID)).thenReturn(Optional.of(requester));
+        when(userRepository.findByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> loadedUsers.computeIfAbsent(id, MatchingServiceDeckTest::user))
+                    .collect(Collectors.toList());
+        });
+
+        when(seenFilterService.seenBy(REQUESTER_ID)).thenReturn(id -> false);
+        when(candidateFeedService.readFeed(eq(REQUESTER_ID), anyInt())).thenReturn(List.of());
+        Set<Long> recalled = LongStream.rangeClosed(2, RANKED + 1).boxed().collect(Collectors.toSet());
+        when(candidateRanker.recall(eq(REQUESTER_ID), any(), any())).thenReturn(recalled);
+        // Ranked by id, honouring the requested k like the real ranker
+        when(candidateRanker.rank(any(), anyCollection(), anyInt(), any())).thenAnswer(invocation -> {
+            int k = invocation.getArgument(2);
+            long[] ids = LongStream.rangeClosed(2, RANKED + 1).limit(k).toArray();
+            double[] scores = new double[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                scores[i] = 0.9 - i * 0.01;
+            }
+            return new CandidateRanker.RankedCandidates(ids, scores);
+        });
+        when(geminiAiService.generateMatchSuggestions(any(), any(), anyInt())).thenReturn(Flux.empty());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        matchingService = new MatchingService(mock(MatchRepository.class), userRepository,
+                mock(ChatMessageRepository.class), geminiAiService, locationService, matchFeatureService,
+                candidateRanker, candidateFeedService, seenFilterService, new DeckSnapshotService(600, 100),
+                new DeckCacheService(100, 60, meterRegistry), mock(PairLockService.class),
+                mock(PairScoreCache.class), mock(PlatformTransactionManager.class),
+                new MatchingMetrics(meterRegistry), mock(AttributeIndexService.class));
+        ReflectionTestUtils.setField(matchingService, "shortlistSize", SHORTLIST);
+        ReflectionTestUtils.setField(matchingService, "feedSize", 50);
+        ReflectionTestUtils.setField(matchingService, "deckSnapshotSize", 100);
+        ReflectionTestUtils.setField(matchingService, "aiMaxConcurrency", 4);
+        ReflectionTestUtils.setField(matchingService, "aiDeadlineMs", 1000L);
+        ReflectionTestUtils.setField(matchingService, "rerankAiWeight", 0.5);
+    }
+
+    @Test
+    void potentialMatchesLoadTheShortlistAndBuildOnlyTheDeck() {
+        List<MatchCandidateDto> deck = matchingService.findPotentialMatches(user(REQUESTER_ID));
+
+        assertThat(deck).hasSize(DECK_SIZE);
+        assertThat(loadedIds()).containsExactlyElementsOf(idRange(2, SHORTLIST));
+
+        Set<Long> returned = deck.stream().map(MatchCandidateDto::getUserId).collect(Collectors.toSet());
+        assertOnlyReturnedWereMaterialized(returned);
+    }
+
+    @Test
+    void deckPageLoadsOnlyThePageSlice() {
+        DeckPageDto firstPage = matchingService.getDeckPage(user(REQUESTER_ID), null, DECK_SIZE);
+
+        assertThat(firstPage.getCandidates()).hasSize(DECK_SIZE);
+        assertThat(loadedIds()).containsExactlyElementsOf(idRange(2, DECK_SIZE));
+        assertOnlyReturnedWereMaterialized(firstPage.getCandidates().stream()
+                .map(MatchCandidateDto::getUserId).collect(Collectors.toSet()));
+
+        loadedUsers.clear();
+        DeckPageDto secondPage = matchingService.getDeckPage(user(REQUESTER_ID), firstPage.getNextCursor(), 5);
+
+        assertThat(secondPage.getCandidates()).hasSize(5);
+        assertThat(loadedUsers.keySet()).containsExactlyInAnyOrderElementsOf(idRange(2 + DECK_SIZE, 5));
+    }
+
+    private void assertOnlyReturnedWereMaterialized(Set<Long> returned) {
+        ArgumentCaptor<User> described = ArgumentCaptor.forClass(User.class);
+        verify(locationService, times(returned.size())).getDistanceDescription(any(), described.capture());
+        assertThat(described.getAllValues()).extracting(User::getId).containsExactlyInAnyOrderElementsOf(returned);
+
+        // Shared classes and the fallback summary read the candidate's classes and
+        // study style; candidates cut from the deck must never have been asked
+        loadedUsers.forEach((id, candidate) -> {
+            if (returned.contains(id)) {
+                verify(candidate, atLeastOnce()).getClasses();
+            } else {
+                verify(candidate, never()).getClasses();
+                verify(candidate, never()).getStudyStyle();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> loadedIds() {
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(userRepository).findByIdIn(ids.capture());
+        return new ArrayList<>(ids.getValue());
+    }
+
+    private static List<Long> idRange(long first, int count) {
+        return LongStream.range(first, first + count).boxed().collect(Collectors.toList());
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setFirstName("User");
+        user.setLastName(String.valueOf(id));
+        user.setProfileCompleted(true);
+        user.setClasses(new HashSet<>(Set.of("CSE 310", "MAT 343")));
+        user.setGoals(new HashSet<>(Set.of("Exam prep")));
+        return spy(user);
+    }
+}
@@ -58,19 +58,46 @@ const AiMatching = ({ userId }) => {
   const fetchStudyRecommendations = async () => {
     try {
       setLoading(true);
-      const response = await fetch(`/api/ai/study-recommendations/${userId}`, {
+      setRecommendations('');
+      const response = await fetch(`/api/ai/study-recommendations/${userId}/stream`, {
         method: 'POST',
         headers: {
           'Content-Type': 'application/json',
+          'Accept': 'text/event-stream',
         },
         body: JSON.stringify({
           availableTimeSlots: ['Monday 14:00-16:00', 'Wednesday 10:00-12:00', 'Friday 15:00-17:00']
         })
       });
-      
-      if (response.ok) {
-        const recommendationData = await response.text();
-        setRecommendations(recommendationData);
+
+      if (response.ok && response.body) {
+        // Server-Sent Events: one text chunk per event, then a "done" event
+        const reader = response.body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+        let finished = false;
+        while (!finished) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buffer += decoder.decode(value, { stream: true });
+          const events = buffer.split(/\r?\n\r?\n/);
+          buffer = events.pop();
+          for (const event of events) {
+            const lines = event.split(/\r?\n/);
+            if (lines.some(line => line.startsWith('event:') && line.slice(6).trim() === 'done')) {
+              finished = true;
+              break;
+            }
+            const text = lines
+              .filter(line => line.startsWith('data:'))
+              .map(line => line.slice(5))
+              .join('\n');
+            if (text) {
+              setLoading(false);
+              setRecommendations(previous => previous + text);
+            }
+          }
+        }
       }
     } catch (error) {
       console.error('Error fetching recommendations:', error);